@@ -0,0 +1,42 @@
+#!/usr/bin/env bash
+# build and run the JMH benchmarks.
+# usage: bench/run.sh [result-file.json] [benchmark-regex]
+#
+# JMH is downloaded from maven central into bench/lib on the first run, the game's own jars are taken from lib.
+# src and bench are compiled together into bench/out, with JMH's annotation processor generating the benchmark code.
+set -euo pipefail
+
+JMH_VERSION=1.37
+REPO=https://repo1.maven.org/maven2
+
+root="$(cd "$(dirname "$0")/.." && pwd)"
+deps="$root/bench/lib"
+out="$root/bench/out"
+
+# fetch a jar from maven central unless it was fetched before
+fetch()
+{
+	local group="$1" artifact="$2" version="$3"
+	local jar="$deps/$artifact-$version.jar"
+	if [ ! -f "$jar" ]; then
+		echo "downloading $artifact $version"
+		curl -fsSL -o "$jar" "$REPO/${group//.//}/$artifact/$version/$artifact-$version.jar"
+	fi
+}
+
+mkdir -p "$deps"
+fetch org.openjdk.jmh jmh-core "$JMH_VERSION"
+fetch org.openjdk.jmh jmh-generator-annprocess "$JMH_VERSION"
+fetch net.sf.jopt-simple jopt-simple 5.0.4
+fetch org.apache.commons commons-math3 3.6.1
+
+classpath="$root/lib/*:$deps/*"
+
+# compile from scratch, so removed benchmarks do not linger in the generated code
+rm -rf "$out"
+mkdir -p "$out"
+javac -encoding UTF-8 -cp "$classpath" -d "$out" \
+	$(find "$root/src" "$root/bench/tetris" -name '*.java')
+
+cd "$root"
+java -cp "$out:$classpath" tetris.bench.BenchmarkRunner "$@"
@@ -0,0 +1,37 @@
+package tetris.bench;
+
+import java.util.Random;
+
+import tetris.core.model.PlayField;
+
+/**
+ * helpers to build realistic boards for the benchmarks
+ */
+final class BenchmarkBoards
+{
+	/**
+	 * static helper, no instances
+	 */
+	private BenchmarkBoards()
+	{
+	}
+
+	/**
+	 * fill the bottom part of a field with random blocks, like a field in the middle of a game.
+	 * every filled line has at least one gap, so no line is complete
+	 * @param field the field to fill
+	 * @param fillLevel how much of the field's height to fill, 0 - 1
+	 * @param rng random number generator to place the blocks with
+	 */
+	static void fill(PlayField field, double fillLevel, Random rng)
+	{
+		int lines = (int) (field.getHeight() * fillLevel);
+		for (int y = field.getHeight() - lines; y < field.getHeight(); y++)
+		{
+			int gap = rng.nextInt(field.getWidth());
+			for (int x = 0; x < field.getWidth(); x++)
+				if (x != gap && rng.nextInt(4) != 0)
+					field.set(x, y, "bcgmrwy".charAt(rng.nextInt(7)));
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package tetris.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * runs all benchmarks with allocation profiling and writes the results as JSON, so runs can be compared
+ */
+public class BenchmarkRunner
+{
+	/**
+	 * run the benchmarks
+	 * @param args optional: [0] the file to write the JSON results to (default jmh-result.json), [1] a regex of the
+	 *            benchmarks to run (default: all)
+	 * @throws RunnerException if running the benchmarks fails
+	 */
+	public static void main(String[] args) throws RunnerException
+	{
+		String resultFile = args.length > 0 ? args[0] : "jmh-result.json";
+		String include = args.length > 1 ? args[1] : "tetris\\.bench\\..*";
+
+		Options options = new OptionsBuilder()
+				.include(include)
+				.addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.JSON)
+				.result(resultFile)
+				.build();
+
+		new Runner(options).run();
+	}
+}
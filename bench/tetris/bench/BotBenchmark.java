@@ -0,0 +1,89 @@
+package tetris.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetris.core.PieceState;
+import tetris.core.ai.HeuristicBot;
+import tetris.core.ai.PlacementEnumerator;
+import tetris.core.model.PlayField;
+
+/**
+ * benchmarks of the bot finding the best placement of a piece.
+ * divide the time of findBestPlacement by the placements of enumerate to get the time per evaluated placement
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BotBenchmark
+{
+	/**
+	 * how much of the field's height is filled with blocks
+	 */
+	@Param({ "0.25", "0.75" })
+	double fillLevel;
+
+	/**
+	 * the type of the piece to place
+	 */
+	@Param({ "0", "5" })
+	int type;
+
+	/**
+	 * the field to place on
+	 */
+	PlayField field;
+
+	/**
+	 * the bot searching the placements
+	 */
+	HeuristicBot bot;
+
+	/**
+	 * the packed state of the piece to place
+	 */
+	long start;
+
+	/**
+	 * scratch array for the placements
+	 */
+	long[] placements;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		field = new PlayField(10, 20);
+		BenchmarkBoards.fill(field, fillLevel, new Random(42));
+		bot = new HeuristicBot();
+		start = PieceState.of(type, 0, 3, 0);
+		placements = new long[PlacementEnumerator.getMaxPlacements(field)];
+	}
+
+	@Benchmark
+	public int enumerate()
+	{
+		return PlacementEnumerator.enumerate(field, start, placements);
+	}
+
+	@Benchmark
+	public long findBestPlacement()
+	{
+		return bot.findBestPlacement(field, start);
+	}
+}
@@ -0,0 +1,211 @@
+package tetris.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetris.core.ShapeRegistry;
+import tetris.core.model.PlayField;
+import tetris.core.model.Shape;
+
+/**
+ * benchmarks of the play field's collision checks, shape placement and line clearing
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayFieldBenchmark
+{
+	/**
+	 * how much of the field's height is filled with blocks
+	 */
+	@Param({ "0.25", "0.5", "0.75" })
+	double fillLevel;
+
+	/**
+	 * the size of the play field
+	 */
+	@Param({ "10x20" })
+	String size;
+
+	/**
+	 * the field benchmarked on
+	 */
+	PlayField field;
+
+	/**
+	 * shapes at random positions, cycled through by the benchmarks
+	 */
+	Shape[] shapes;
+
+	/**
+	 * shapes at random positions that do not collide with anything
+	 */
+	Shape[] placeable;
+
+	/**
+	 * the index of the next shape to use
+	 */
+	int next = 0;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		field = createField(size);
+		Random rng = new Random(42);
+		BenchmarkBoards.fill(field, fillLevel, rng);
+
+		// random shapes anywhere on the field, some colliding and some not
+		shapes = new Shape[1024];
+		for (int i = 0; i < shapes.length; i++)
+		{
+			shapes[i] = ShapeRegistry.getRandomShape(rng, field, rng.nextInt(field.getWidth()) - 1,
+					rng.nextInt(field.getHeight()));
+			shapes[i].setRotation(rng.nextInt(4) * 90);
+		}
+
+		// shapes that do not collide, so they can be placed
+		placeable = new Shape[256];
+		for (int i = 0; i < placeable.length;)
+		{
+			Shape shape = ShapeRegistry.getRandomShape(rng, field, rng.nextInt(field.getWidth()) - 1,
+					rng.nextInt(field.getHeight()));
+			shape.setRotation(rng.nextInt(4) * 90);
+			if (!field.checkCollision(shape))
+				placeable[i++] = shape;
+		}
+	}
+
+	/**
+	 * create a blank field
+	 * @param size the size of the field, WxH
+	 * @return the field
+	 */
+	static PlayField createField(String size)
+	{
+		String[] wh = size.split("x");
+		return new PlayField(Integer.parseInt(wh[0]), Integer.parseInt(wh[1]));
+	}
+
+	/**
+	 * @return the next shape to use
+	 */
+	Shape nextShape()
+	{
+		next = (next + 1) & (shapes.length - 1);
+		return shapes[next];
+	}
+
+	@Benchmark
+	public boolean checkCollision()
+	{
+		return field.checkCollision(nextShape());
+	}
+
+	/**
+	 * place a shape and remove it again, so the field stays the same for every invocation
+	 */
+	@Benchmark
+	public PlayField placeShape()
+	{
+		// only place shapes that fit, like the game does
+		next = (next + 1) & (placeable.length - 1);
+		Shape shape = placeable[next];
+		field.placeShape(shape);
+
+		// undo the placement
+		char[][] blocks = shape.getBlocks();
+		for (int x = 0; x < blocks.length; x++)
+			for (int y = 0; y < blocks[x].length; y++)
+				if (blocks[x][y] != PlayField.BLANK)
+					field.set(shape.getX() + x, shape.getY() + y, PlayField.BLANK);
+
+		return field;
+	}
+
+	/**
+	 * check for complete lines when there are none (what happens on almost every frame)
+	 */
+	@Benchmark
+	public int removeCompleteLinesNone()
+	{
+		return field.removeCompleteLines();
+	}
+
+	/**
+	 * how many fields removeCompleteLinesTetris() clears per invocation
+	 */
+	static final int CLEAR_BATCH = 1024;
+
+	/**
+	 * clearing lines state: a batch of fields with the 4 bottom- most lines complete.
+	 * Clearing lines takes nanoseconds, far too short to time on its own, so every invocation clears a whole batch. The
+	 * fields are allocated and the template is filled once per iteration, before every invocation the fields are only
+	 * reset to the template, which costs a single setup call per CLEAR_BATCH operations.
+	 * The template is filled and sized by the benchmark's fillLevel and size params
+	 */
+	@State(Scope.Thread)
+	public static class ClearState
+	{
+		/**
+		 * the field every field of the batch is reset to
+		 */
+		PlayField template;
+
+		/**
+		 * the fields cleared by a invocation
+		 */
+		PlayField[] fields;
+
+		@Setup(Level.Iteration)
+		public void prepare(PlayFieldBenchmark benchmark)
+		{
+			template = createField(benchmark.size);
+			BenchmarkBoards.fill(template, benchmark.fillLevel, new Random(42));
+			for (int y = template.getHeight() - 4; y < template.getHeight(); y++)
+				for (int x = 0; x < template.getWidth(); x++)
+					template.set(x, y, 'c');
+
+			fields = new PlayField[CLEAR_BATCH];
+			for (int i = 0; i < fields.length; i++)
+				fields[i] = new PlayField(template.getWidth(), template.getHeight());
+		}
+
+		@Setup(Level.Invocation)
+		public void reset()
+		{
+			for (PlayField field : fields)
+				field.copyFrom(template);
+		}
+	}
+
+	/**
+	 * clear 4 complete lines at once
+	 */
+	@Benchmark
+	@OperationsPerInvocation(CLEAR_BATCH)
+	public int removeCompleteLinesTetris(ClearState state)
+	{
+		int lines = 0;
+		for (PlayField field : state.fields)
+			lines += field.removeCompleteLines();
+
+		return lines;
+	}
+}
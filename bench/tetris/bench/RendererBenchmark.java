@@ -0,0 +1,80 @@
+package tetris.bench;
+
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetris.core.ShapeRegistry;
+import tetris.core.model.PlayField;
+import tetris.core.model.Renderer;
+import tetris.core.model.Shape;
+import tetris.core.renderers.console.ChannelOutputSink;
+import tetris.core.renderers.console.ConsoleRendererFactory;
+
+/**
+ * benchmarks of drawing a full frame with the console renderer.
+ * The output is encoded and written into nothing, so only the rendering itself is measured
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RendererBenchmark
+{
+	/**
+	 * render with or without color
+	 */
+	@Param({ "false", "true" })
+	boolean color;
+
+	/**
+	 * render by patching a pre- encoded frame template
+	 */
+	@Param({ "false", "true" })
+	boolean template;
+
+	/**
+	 * the renderer benchmarked
+	 */
+	Renderer renderer;
+
+	/**
+	 * the moving shape drawn on top of the field
+	 */
+	Shape shape;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		PlayField field = new PlayField(10, 20);
+		BenchmarkBoards.fill(field, 0.5, new Random(42));
+		shape = ShapeRegistry.createShape(ShapeRegistry.T, field, 3, 2);
+		renderer = new ConsoleRendererFactory().setColorEnabled(color).setTemplateEnabled(template)
+				// throw away everything the renderer writes, after encoding it like it would be for stdout
+				.setOutputSink(new ChannelOutputSink(Channels.newChannel(OutputStream.nullOutputStream()), 64 * 1024))
+				.build(field);
+	}
+
+	@Benchmark
+	public Renderer draw()
+	{
+		renderer.draw(shape, 1234.5);
+		return renderer;
+	}
+}
@@ -0,0 +1,84 @@
+package tetris.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tetris.core.ShapeRegistry;
+import tetris.core.model.PlayField;
+import tetris.core.model.Shape;
+
+/**
+ * benchmarks of moving and rotating shapes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShapeBenchmark
+{
+	/**
+	 * how much of the field's height is filled with blocks
+	 */
+	@Param({ "0.25", "0.75" })
+	double fillLevel;
+
+	/**
+	 * the field the shape moves on
+	 */
+	PlayField field;
+
+	/**
+	 * the shape that is moved around
+	 */
+	Shape shape;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		field = new PlayField(10, 20);
+		BenchmarkBoards.fill(field, fillLevel, new Random(42));
+		shape = ShapeRegistry.createShape(ShapeRegistry.T, field, 3, 0);
+	}
+
+	/**
+	 * put the shape back to the top of the field every iteration, so it never lands
+	 */
+	@Setup(Level.Iteration)
+	public void resetShape()
+	{
+		shape.setPosition(3, 0);
+		shape.setRotation(0);
+	}
+
+	@Benchmark
+	public boolean rotate()
+	{
+		return shape.rotate();
+	}
+
+	/**
+	 * move the shape down by one and back up again
+	 */
+	@Benchmark
+	public boolean moveDown()
+	{
+		boolean moved = shape.moveDown(1);
+		shape.setPosition(3, 0);
+		return moved;
+	}
+}
@@ -0,0 +1,73 @@
+package tetris.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.diogonunes.jcolor.Attribute;
+
+import tetris.core.renderers.console.StringCanvas;
+
+/**
+ * benchmarks of building a frame on the string canvas, without any field logic
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringCanvasBenchmark
+{
+	/**
+	 * draw the blocks with or without color
+	 */
+	@Param({ "false", "true" })
+	boolean color;
+
+	/**
+	 * the canvas benchmarked
+	 */
+	final StringCanvas canvas = new StringCanvas();
+
+	/**
+	 * color to draw blocks in
+	 */
+	final Attribute blockColor = Attribute.CYAN_TEXT();
+
+	/**
+	 * build a frame the size of a 10x20 field, like the console renderer does
+	 */
+	@Benchmark
+	public String buildFrame()
+	{
+		int width = 20;
+		canvas.setLeftPadding(3)
+				.clear()
+				.header(width)
+				.stringCentered("Score: 1234.50", width)
+				.separator(width);
+
+		for (int y = 0; y < 20; y++)
+		{
+			canvas.vRail();
+			for (int x = 0; x < width; x += 2)
+				canvas.setColorEnabled(color)
+						.setForegroundColor((x + y) % 3 == 0 ? null : blockColor)
+						.append((x + y) % 3 == 0 ? ' ' : '█', 2);
+			canvas.setColorEnabled(false).vRail().ln();
+		}
+
+		canvas.footer(width);
+		return canvas.toString();
+	}
+}
@@ -5,15 +5,55 @@ import java.util.Scanner;
 import com.diogonunes.jcolor.Ansi;
 import com.diogonunes.jcolor.Attribute;
 
+import tetris.core.GameEngine;
+import tetris.core.KeyboardInputSource;
 import tetris.core.TetrisGame;
+import tetris.core.renderers.async.AsyncRendererFactory;
+import tetris.core.renderers.console.ChannelOutputSink;
 import tetris.core.renderers.console.ConsoleRendererFactory;
+import tetris.core.renderers.console.OutputSink;
 
 public class App
 {
-	public static void main(String[] args) throws InterruptedException
+	public static void main(String[] args)
 	{
 		// create and init renderer factory
-		ConsoleRendererFactory rendererFactory = new ConsoleRendererFactory();
+		// --diff only redraws what changed every frame
+		// --template patches blocks and score into a pre- encoded frame (not together with --diff)
+		// --async draws on a separate render thread
+		// --fps <n> renders at most n frames per second
+		// --event sleeps until the game changes or a key is pressed, instead of waking up every step
+		// --no-ghost does not draw the ghost showing where the piece would land
+		// --stats prints statistics on the game loop, input and output after the game
+		OutputSink sink = new ChannelOutputSink();
+		ConsoleRendererFactory rendererFactory = new ConsoleRendererFactory().setOutputSink(sink);
+		boolean printStats = false, async = false, eventDriven = false, diff = false, template = false;
+		int fps = GameEngine.STEPS_PER_SECOND;
+		for (int i = 0; i < args.length; i++)
+		{
+			String arg = args[i];
+			if (arg.equals("--diff"))
+				diff = true;
+			else if (arg.equals("--template"))
+				template = true;
+			else if (arg.equals("--async"))
+				async = true;
+			else if (arg.equals("--event"))
+				eventDriven = true;
+			else if (arg.equals("--no-ghost"))
+				rendererFactory.setGhostEnabled(false);
+			else if (arg.equals("--stats"))
+				printStats = true;
+			else if (arg.equals("--fps") && i + 1 < args.length)
+				fps = Integer.parseInt(args[++i]);
+		}
+
+		if (diff && template)
+		{
+			System.err.println("--diff and --template cannot be used together");
+			return;
+		}
+		rendererFactory.setDifferentialEnabled(diff).setTemplateEnabled(template);
 
 		// ask user if color should be enabled
 		Scanner sc = new Scanner(System.in);
@@ -21,7 +61,12 @@ public class App
 		sc.close();
 		
 		// start the game
-		new TetrisGame(rendererFactory).play();
+		KeyboardInputSource input = new KeyboardInputSource();
+		TetrisGame game = new TetrisGame(new GameEngine(10, 20), async ? new AsyncRendererFactory(rendererFactory) : rendererFactory,
+				input).setRenderRate(fps).setEventDriven(eventDriven);
+		game.play();
+		if (printStats)
+			System.out.printf("%nloop %s%ninput %s%noutput %s%n", game.getLoopMetrics(), input, sink);
 	}
 
 	/**
@@ -0,0 +1,125 @@
+package tetris;
+
+import tetris.core.ai.BeamSearchBot;
+import tetris.core.ai.HeuristicBot;
+import tetris.core.simulation.BatchSimulator;
+import tetris.core.simulation.RandomInputSource;
+import tetris.core.simulation.SimulationStats;
+
+/**
+ * command line entry point to simulate lots of games without a display and print aggregated statistics
+ */
+public class Simulator
+{
+	public static void main(String[] args) throws InterruptedException
+	{
+		// parse the arguments into the simulator settings
+		BatchSimulator simulator = new BatchSimulator();
+		if (!parseArgs(args, simulator))
+		{
+			printUsage();
+			System.exit(1);
+			return;
+		}
+
+		// run the simulation and print the results
+		SimulationStats stats = simulator.run();
+		System.out.print(stats);
+	}
+
+	/**
+	 * parse the command line arguments and apply them to the simulator
+	 * @param args the arguments to parse
+	 * @param simulator the simulator to configure
+	 * @return were the arguments valid?
+	 */
+	static boolean parseArgs(String[] args, BatchSimulator simulator)
+	{
+		try
+		{
+			int width = 10, height = 20, depth = 3, beamWidth = 16;
+			String policy = "random";
+			for (int i = 0; i < args.length; i++)
+			{
+				// every option has a value
+				String option = args[i];
+				if (i + 1 >= args.length)
+					return false;
+				String value = args[++i];
+
+				switch (option)
+				{
+				case "--games":
+					simulator.setGames(Long.parseLong(value));
+					break;
+				case "--threads":
+					simulator.setThreads(Integer.parseInt(value));
+					break;
+				case "--seed":
+					simulator.setSeed(Long.parseLong(value));
+					break;
+				case "--max-steps":
+					simulator.setMaxSteps(Long.parseLong(value));
+					break;
+				case "--policy":
+					policy = value;
+					break;
+				case "--depth":
+					depth = Integer.parseInt(value);
+					break;
+				case "--beam-width":
+					beamWidth = Integer.parseInt(value);
+					break;
+				case "--width":
+					width = Integer.parseInt(value);
+					break;
+				case "--height":
+					height = Integer.parseInt(value);
+					break;
+				default:
+					return false;
+				}
+			}
+
+			simulator.setFieldSize(width, height);
+
+			// simulated games do not run in real time, so the beam search gets no time budget.
+			// this also keeps batches reproducible
+			switch (policy)
+			{
+			case "random":
+				simulator.setPolicy(new RandomInputSource.Factory());
+				break;
+			case "heuristic":
+				simulator.setPolicy(new HeuristicBot.Factory());
+				break;
+			case "beam":
+				simulator.setPolicy(new BeamSearchBot.Factory(depth, beamWidth, 0));
+				break;
+			default:
+				return false;
+			}
+			return true;
+		} catch (NumberFormatException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * print how to use the simulator
+	 */
+	static void printUsage()
+	{
+		System.err.printf("usage: Simulator [options]%n"
+				+ "  --games <n>      number of games to play (default 1000)%n"
+				+ "  --threads <n>    number of threads to play on (default: all cores)%n"
+				+ "  --seed <n>       seed of the first game, game i uses seed + i (default 0)%n"
+				+ "  --max-steps <n>  stop games after this many steps, 0 for no limit (default " + BatchSimulator.DEFAULT_MAX_STEPS + ")%n"
+				+ "  --policy <p>     who plays the games: random, heuristic or beam (default random)%n"
+				+ "  --depth <n>      pieces the beam search looks ahead, including the current one (default 3)%n"
+				+ "  --beam-width <n> boards the beam search keeps per piece (default 16)%n"
+				+ "  --width <n>      width of the play field (default 10)%n"
+				+ "  --height <n>     height of the play field (default 20)%n");
+	}
+}
@@ -0,0 +1,113 @@
+package tetris.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * fixed- size bit set that can be read and modified by multiple threads without locking.
+ * Every operation is O(1) and allocates nothing. Indices outside the set read as clear and are ignored on writes.
+ */
+class AtomicBitSet
+{
+	/**
+	 * the bits, bit (i % 64) of word (i / 64) is bit i
+	 */
+	final AtomicLongArray words;
+
+	/**
+	 * how many bits the set holds
+	 */
+	final int size;
+
+	/**
+	 * create a bit set with all bits clear
+	 * @param bits how many bits the set holds
+	 */
+	AtomicBitSet(int bits)
+	{
+		size = bits;
+		words = new AtomicLongArray((bits + Long.SIZE - 1) / Long.SIZE);
+	}
+
+	/**
+	 * @param i the index of the bit
+	 * @return is the bit set?
+	 */
+	boolean get(int i)
+	{
+		if (i < 0 || i >= size)
+			return false;
+
+		return (words.get(i >>> 6) & (1L << i)) != 0;
+	}
+
+	/**
+	 * set a bit
+	 * @param i the index of the bit
+	 * @return was the bit clear before (so this call set it)?
+	 */
+	boolean set(int i)
+	{
+		if (i < 0 || i >= size)
+			return false;
+
+		int w = i >>> 6;
+		long bit = 1L << i;
+		long old;
+		do
+		{
+			old = words.get(w);
+			if ((old & bit) != 0)
+				return false;
+		} while (!words.compareAndSet(w, old, old | bit));
+
+		return true;
+	}
+
+	/**
+	 * set a bit, but only if another bit of the same word is set. Both bits are checked and changed in one atomic step
+	 * @param i the index of the bit to set
+	 * @param required the index of the bit that has to be set. Must be in the same word as i (i / 64 == required / 64)
+	 * @return was the bit clear and the required bit set (so this call set it)?
+	 */
+	boolean setIfSet(int i, int required)
+	{
+		if (i < 0 || i >= size || required >>> 6 != i >>> 6)
+			return false;
+
+		int w = i >>> 6;
+		long bit = 1L << i;
+		long requiredBit = 1L << required;
+		long old;
+		do
+		{
+			old = words.get(w);
+			if ((old & bit) != 0 || (old & requiredBit) == 0)
+				return false;
+		} while (!words.compareAndSet(w, old, old | bit));
+
+		return true;
+	}
+
+	/**
+	 * clear a bit
+	 * @param i the index of the bit
+	 * @return was the bit set before (so this call cleared it)?
+	 */
+	boolean clear(int i)
+	{
+		if (i < 0 || i >= size)
+			return false;
+
+		int w = i >>> 6;
+		long bit = 1L << i;
+		long old;
+		do
+		{
+			old = words.get(w);
+			if ((old & bit) == 0)
+				return false;
+		} while (!words.compareAndSet(w, old, old & ~bit));
+
+		return true;
+	}
+}
@@ -0,0 +1,360 @@
+package tetris.core;
+
+import java.util.Random;
+
+import tetris.core.model.PlayField;
+import tetris.core.model.Shape;
+
+/**
+ * the headless core of the game.
+ * The game only advances when {@code step()} is called, so it does not depend on a keyboard, renderer or the wall
+ * clock. {@code TetrisGame} drives this in real time, simulations can call step() as fast as they like.
+ */
+public class GameEngine
+{
+	/**
+	 * how many steps make up one second of game time.
+	 * The fall speed is tuned for this rate, so real- time drivers should call step() this often per second.
+	 */
+	public static final int STEPS_PER_SECOND = 10;
+
+	/**
+	 * how fast pieces fall (amount moved every step)
+	 */
+	public static final double FALL_SPEED = 2.5 / STEPS_PER_SECOND;
+
+	/**
+	 * how many upcoming pieces can be seen in the piece queue
+	 */
+	public static final int PREVIEW_SIZE = 5;
+
+	/**
+	 * where new pieces spawn
+	 */
+	public static final int SPAWN_X = 0, SPAWN_Y = 0;
+
+	/**
+	 * the field to play on
+	 */
+	final PlayField field;
+
+	/**
+	 * the upcoming pieces, drawn from the random number generator of the game
+	 */
+	final PieceQueue queue;
+
+	/**
+	 * flag set when the game is over
+	 */
+	boolean gameOver = false;
+
+	/**
+	 * the currently held shape
+	 */
+	Shape currentPiece;
+
+	/**
+	 * the current score
+	 */
+	double score = 0;
+
+	/**
+	 * how many steps were run, pieces were placed and lines were cleared
+	 */
+	long steps = 0, piecesPlaced = 0, linesCleared = 0;
+
+	/**
+	 * change counter of everything drawn: the field, the current piece and the score.
+	 * see getFrameVersion()
+	 */
+	long frameVersion = 0;
+
+	/**
+	 * the field version, piece and score frameVersion was last increased for
+	 */
+	long versionedField = -1, versionedPiece = PieceState.INVALID;
+	double versionedScore = Double.NaN;
+
+	/**
+	 * init a game on a field of WxH blocks with a random seed
+	 * @param w the width of the play field
+	 * @param h the height of the play field
+	 */
+	public GameEngine(int w, int h)
+	{
+		this(w, h, new Random());
+	}
+
+	/**
+	 * init a game on a field of WxH blocks with a fixed seed. Games with the same seed and input play out the same.
+	 * @param w the width of the play field
+	 * @param h the height of the play field
+	 * @param seed the seed for the random number generator
+	 */
+	public GameEngine(int w, int h, long seed)
+	{
+		this(w, h, new Random(seed));
+	}
+
+	/**
+	 * init a game on a field of WxH blocks
+	 * @param w the width of the play field
+	 * @param h the height of the play field
+	 * @param random the random number generator to use
+	 */
+	GameEngine(int w, int h, Random random)
+	{
+		field = new PlayField(w, h);
+		queue = new PieceQueue(random, PREVIEW_SIZE);
+
+		// put the first piece
+		getNewPiece();
+	}
+
+	/**
+	 * advance the game by one step.
+	 * The input actions are applied in order before the piece falls, except DROP, which is applied after the piece fell.
+	 * does nothing once the game is over
+	 * @param input the input to apply in this step
+	 */
+	public void step(InputFrame input)
+	{
+		if (gameOver)
+			return;
+
+		// apply the input actions to the current piece. a drop is only done after the piece fell
+		boolean drop = false;
+		for (int i = 0; i < input.size(); i++)
+			if (input.get(i) == InputFrame.DROP)
+				drop = true;
+			else
+				applyAction(input.get(i));
+
+		// move the piece down
+		handlePieceGravity();
+
+		// if the player pressed DROP, move the current piece to it's final position
+		if (drop)
+			handlePieceDrop();
+
+		// check for complete lines and add them to the score
+		handleCompleteLines();
+		steps++;
+	}
+
+	/**
+	 * apply input right away, between two steps. Pieces do not fall and no step is counted.
+	 * Used by drivers that react to input as soon as it arrives instead of waiting for the next step
+	 * @param input the actions to apply, in order
+	 */
+	public void applyInput(InputFrame input)
+	{
+		if (gameOver)
+			return;
+
+		for (int i = 0; i < input.size(); i++)
+			applyAction(input.get(i));
+
+		// a drop may have completed lines
+		handleCompleteLines();
+	}
+
+	/**
+	 * get how many steps without input it takes until the game changes.
+	 * Steps before that only move the current piece within its row, so they change nothing that is drawn
+	 * @return the number of steps, at least 1
+	 */
+	public int getStepsUntilChange()
+	{
+		if (gameOver || currentPiece == null)
+			return 1;
+
+		return currentPiece.getMovesUntilNextRow(FALL_SPEED);
+	}
+
+	/**
+	 * get the change counter of everything a renderer draws: the field, the current piece and the score.
+	 * If it is the same as for a earlier frame, the frame would look the same, so it does not have to be drawn again
+	 * @return the frame version
+	 */
+	public long getFrameVersion()
+	{
+		long piece = currentPiece == null ? PieceState.INVALID : PieceState.of(currentPiece);
+		if (field.getVersion() != versionedField || piece != versionedPiece || score != versionedScore)
+		{
+			versionedField = field.getVersion();
+			versionedPiece = piece;
+			versionedScore = score;
+			frameVersion++;
+		}
+
+		return frameVersion;
+	}
+
+	/**
+	 *
+	 * @return the field played on
+	 */
+	public PlayField getField()
+	{
+		return field;
+	}
+
+	/**
+	 *
+	 * @return the currently falling piece, or null if the game is over
+	 */
+	public Shape getCurrentPiece()
+	{
+		return currentPiece;
+	}
+
+	/**
+	 *
+	 * @return the queue of upcoming pieces. Only look at it, taking pieces out is up to the engine
+	 */
+	public PieceQueue getPieceQueue()
+	{
+		return queue;
+	}
+
+	/**
+	 *
+	 * @return the current score
+	 */
+	public double getScore()
+	{
+		return score;
+	}
+
+	/**
+	 *
+	 * @return is the game over?
+	 */
+	public boolean isGameOver()
+	{
+		return gameOver;
+	}
+
+	/**
+	 *
+	 * @return how many steps were run
+	 */
+	public long getSteps()
+	{
+		return steps;
+	}
+
+	/**
+	 *
+	 * @return how many pieces were placed
+	 */
+	public long getPiecesPlaced()
+	{
+		return piecesPlaced;
+	}
+
+	/**
+	 *
+	 * @return how many lines were cleared
+	 */
+	public long getLinesCleared()
+	{
+		return linesCleared;
+	}
+
+	/**
+	 * apply a single input action to the current piece
+	 * @param action the action to apply, see {@code InputFrame}
+	 */
+	void applyAction(int action)
+	{
+		// ignore input when no piece is falling
+		if (currentPiece == null)
+			return;
+
+		switch (action)
+		{
+		case InputFrame.ROTATE:
+			currentPiece.rotate();
+			break;
+		case InputFrame.LEFT:
+			currentPiece.moveHorizontal(-1);
+			break;
+		case InputFrame.RIGHT:
+			currentPiece.moveHorizontal(1);
+			break;
+		case InputFrame.DROP:
+			handlePieceDrop();
+			break;
+		}
+	}
+
+	/**
+	 * move the current piece to it's final position and place it
+	 */
+	void handlePieceDrop()
+	{
+		// do not drop when there is no piece
+		if (currentPiece == null)
+			return;
+
+		currentPiece.drop();
+		onPieceCollided();
+	}
+
+	/**
+	 * remove complete lines and add them to the score
+	 */
+	void handleCompleteLines()
+	{
+		int lns = field.removeCompleteLines();
+		linesCleared += lns;
+		score += lns * 10;
+	}
+
+	/**
+	 * handles the falling of the current piece
+	 */
+	void handlePieceGravity()
+	{
+		// do not update the piece when there is none
+		if (currentPiece == null)
+			return;
+
+		// move the current piece down
+		if (!currentPiece.moveDown(FALL_SPEED))
+		{
+			// collided while moving, place the piece at the current position
+			onPieceCollided();
+		}
+	}
+
+	/**
+	 * called when the current piece collided with something and should be placed
+	 */
+	void onPieceCollided()
+	{
+		// place current piece and get a new one
+		field.placeShape(currentPiece);
+		piecesPlaced++;
+		getNewPiece();
+
+		// check if the new piece collides
+		if (field.checkCollision(currentPiece))
+		{
+			// new piece instantly collided with something, == game- over
+			// remove the current piece
+			gameOver = true;
+			currentPiece = null;
+		}
+	}
+
+	/**
+	 * put a new piece into the currentPiece variable
+	 */
+	void getNewPiece()
+	{
+		currentPiece = ShapeRegistry.createShape(queue.next(), field, SPAWN_X, SPAWN_Y);
+	}
+}
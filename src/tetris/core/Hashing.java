@@ -0,0 +1,33 @@
+package tetris.core;
+
+/**
+ * helper for the 64 bit hashing shared by the board hash, the transposition table keys and the simulator's seeds.
+ * Keep it in one place, so hashes computed in different places always match.
+ */
+public final class Hashing
+{
+	/**
+	 * the golden ratio as 64 bit fraction, the increment of the SplitMix64 generator. Used to offset values before
+	 * mixing, so small inputs (like 0) do not mix to small outputs
+	 */
+	public static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * static helper, no instances
+	 */
+	private Hashing()
+	{
+	}
+
+	/**
+	 * scramble the bits of a value (the finalizer of the SplitMix64 generator)
+	 * @param z the value to scramble
+	 * @return the scrambled value
+	 */
+	public static long mix64(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,146 @@
+package tetris.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * single- producer, single- consumer ring buffer of timestamped key events.
+ * The keyboard hook thread offers events, the game thread drains them once per step, in the order they happened.
+ * Neither side locks or allocates. If the game thread falls too far behind, new events are dropped (and counted).
+ *
+ * Events are read through a cursor: poll() moves to the next event, the getters return the event at the cursor.
+ */
+class InputEventQueue
+{
+	/**
+	 * the keycode of every event, with RELEASED_FLAG set for releases
+	 */
+	final int[] codes;
+
+	/**
+	 * the time (System.nanoTime()) of every event
+	 */
+	final long[] times;
+
+	/**
+	 * capacity - 1, capacity is a power of two
+	 */
+	final int mask;
+
+	/**
+	 * flag set on the code of release events
+	 */
+	static final int RELEASED_FLAG = 1 << 31;
+
+	/**
+	 * the index of the next event to write. Only written by the producer
+	 */
+	final AtomicLong head = new AtomicLong();
+
+	/**
+	 * the index of the next event to read. Only written by the consumer
+	 */
+	final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * how many events were dropped because the queue was full. Only written by the producer
+	 */
+	volatile long dropped = 0;
+
+	/**
+	 * the event at the cursor
+	 */
+	int currentCode;
+	long currentTime;
+
+	/**
+	 * create a empty queue
+	 * @param capacity how many events the queue can hold at least. rounded up to a power of two
+	 */
+	InputEventQueue(int capacity)
+	{
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		codes = new int[size];
+		times = new long[size];
+		mask = size - 1;
+	}
+
+	/**
+	 * add a event to the queue. Producer thread only
+	 * @param keyCode the keycode of the key
+	 * @param pressed was the key pressed (or released)?
+	 * @param nanos when the event happened, System.nanoTime()
+	 * @return was the event added? false if the queue is full
+	 */
+	boolean offer(int keyCode, boolean pressed, long nanos)
+	{
+		long h = head.get();
+		if (h - tail.get() > mask)
+		{
+			dropped++;
+			return false;
+		}
+
+		int i = (int) h & mask;
+		codes[i] = pressed ? keyCode : keyCode | RELEASED_FLAG;
+		times[i] = nanos;
+
+		// publish the event. lazySet orders the writes above before it
+		head.lazySet(h + 1);
+		return true;
+	}
+
+	/**
+	 * move the cursor to the next event. Consumer thread only
+	 * @return was there a event? if false, the cursor did not move
+	 */
+	boolean poll()
+	{
+		long t = tail.get();
+		if (t == head.get())
+			return false;
+
+		int i = (int) t & mask;
+		currentCode = codes[i];
+		currentTime = times[i];
+
+		// free the slot for the producer
+		tail.lazySet(t + 1);
+		return true;
+	}
+
+	/**
+	 *
+	 * @return the keycode of the event at the cursor
+	 */
+	int getKeyCode()
+	{
+		return currentCode & ~RELEASED_FLAG;
+	}
+
+	/**
+	 *
+	 * @return was the key of the event at the cursor pressed (or released)?
+	 */
+	boolean isPressed()
+	{
+		return (currentCode & RELEASED_FLAG) == 0;
+	}
+
+	/**
+	 *
+	 * @return when the event at the cursor happened, System.nanoTime()
+	 */
+	long getTime()
+	{
+		return currentTime;
+	}
+
+	/**
+	 *
+	 * @return how many events were dropped because the queue was full
+	 */
+	long getDropped()
+	{
+		return dropped;
+	}
+}
@@ -0,0 +1,83 @@
+package tetris.core;
+
+import java.util.Arrays;
+
+/**
+ * the input for one step of the game: a ordered list of actions to apply to the current piece.
+ * Frames are meant to be reused, call {@code clear()} before filling it again.
+ */
+public class InputFrame
+{
+	/**
+	 * rotate the current piece by 90 deg clockwise
+	 */
+	public static final int ROTATE = 1;
+
+	/**
+	 * move the current piece one block to the left
+	 */
+	public static final int LEFT = 2;
+
+	/**
+	 * move the current piece one block to the right
+	 */
+	public static final int RIGHT = 3;
+
+	/**
+	 * drop the current piece to its final position and place it (hard drop)
+	 */
+	public static final int DROP = 4;
+
+	/**
+	 * the actions of this frame, in the order they should be applied
+	 */
+	int[] actions = new int[8];
+
+	/**
+	 * how many actions are in {@code actions}
+	 */
+	int count = 0;
+
+	/**
+	 * remove all actions from the frame
+	 * @return the frame
+	 */
+	public InputFrame clear()
+	{
+		count = 0;
+		return this;
+	}
+
+	/**
+	 * add a action to the end of the frame
+	 * @param action the action to add, one of ROTATE, LEFT, RIGHT or DROP
+	 * @return the frame
+	 */
+	public InputFrame add(int action)
+	{
+		if (count == actions.length)
+			actions = Arrays.copyOf(actions, count * 2);
+
+		actions[count++] = action;
+		return this;
+	}
+
+	/**
+	 *
+	 * @return how many actions are in this frame
+	 */
+	public int size()
+	{
+		return count;
+	}
+
+	/**
+	 * get a action of this frame
+	 * @param i the index of the action, 0 is the first action to apply
+	 * @return the action
+	 */
+	public int get(int i)
+	{
+		return actions[i];
+	}
+}
@@ -0,0 +1,40 @@
+package tetris.core;
+
+public abstract class InputSource
+{
+	/**
+	 * initialize the input source.
+	 * called once before the first poll
+	 * @return was init successfull?
+	 */
+	public boolean init()
+	{
+		return true;
+	}
+
+	/**
+	 * dispose the input source.
+	 * called once after the game ended
+	 * @return was disposing successfull?
+	 */
+	public boolean dispose()
+	{
+		return true;
+	}
+
+	/**
+	 * set a listener to call whenever new input arrives, so a driver waiting for input can wake up.
+	 * Sources that only produce input when polled can ignore this
+	 * @param listener the listener to call (from any thread), or null to remove it
+	 */
+	public void setInputListener(Runnable listener)
+	{
+	}
+
+	/**
+	 * collect the input for the next step of the game
+	 * @param game the game the input is for
+	 * @param frame the (cleared) frame to add the actions to
+	 */
+	public abstract void poll(GameEngine game, InputFrame frame);
+}
@@ -1,6 +1,6 @@
 package tetris.core;
 
-import java.util.ArrayList;
+import java.util.function.IntConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -9,18 +9,33 @@ import org.jnativehook.NativeHookException;
 import org.jnativehook.keyboard.NativeKeyEvent;
 import org.jnativehook.keyboard.NativeKeyListener;
 
+/**
+ * reads the keyboard using JNativeHook's global keyboard hook.
+ * The key state is written by the hook's dispatch thread and read by the game thread, so it is kept in a lock- free
+ * bit set. Every key has two neighboring bits (down and press blocked), so both always lie in the same word and can be
+ * checked and changed together in one atomic step.
+ */
 public class KeyboardHelper
 {
 	/**
-	 * a list of all currently pressed key's keycodes
+	 * how many keycodes are tracked. all of JNativeHook's virtual keycodes are below this
 	 */
-	ArrayList<Integer> downKeyCodes = new ArrayList<Integer>();
+	static final int KEY_CODES = 0x10000;
 
 	/**
-	 * a list of all key's keycodes that were checked using wasPressed and weren't released since then
-	 * (avoid auto- repeat of keystrokes that jNativeHook likes to do)
+	 * the state of all keys, two bits per keycode: see downBit() and blockedBit()
 	 */
-	ArrayList<Integer> pressBlockedKeyCodes = new ArrayList<Integer>();
+	final AtomicBitSet keyStates = new AtomicBitSet(KEY_CODES * 2);
+
+	/**
+	 * every press and release, in the order they happened. drained by the game thread
+	 */
+	final InputEventQueue events = new InputEventQueue(1024);
+
+	/**
+	 * called on the hook thread with the keycode of every new key press (not for auto- repeats or releases), or null
+	 */
+	volatile IntConsumer eventListener;
 
 	/**
 	 * try to init the keyboard hook
@@ -66,23 +81,69 @@ public class KeyboardHelper
 	 */
 	public boolean isDown(int keyCode)
 	{
-		return downKeyCodes.contains(keyCode);
+		return keyStates.get(downBit(keyCode));
 	}
 
 	/**
 	 * check if the given key was pressed
-	 * returns true ONLY once until the key is pressed the next time
+	 * returns true only once per press, until the key is released and pressed again. A press that is released again
+	 * before this is called is not seen, use the event queue to see every press
 	 * @param keyCode the keycode of the key to check. See {@code NativeKeyEvent} for a list of keycodes
 	 * @return was the key pressed?
 	 */
 	public boolean wasPressed(int keyCode)
 	{
-		if (downKeyCodes.contains(keyCode) && !pressBlockedKeyCodes.contains(keyCode))
-		{
-			pressBlockedKeyCodes.add(keyCode);
-			return true;
-		}
-		return false;
+		// block the key if it is down and not blocked yet, in one step so a release cannot get in between
+		return keyStates.setIfSet(blockedBit(keyCode), downBit(keyCode));
+	}
+
+	/**
+	 * get the queue of key events. Only one thread may drain it
+	 * @return the queue of all presses and releases, in the order they happened
+	 */
+	InputEventQueue getEvents()
+	{
+		return events;
+	}
+
+	/**
+	 * set a listener called on the hook thread for every new key press.
+	 * auto- repeats of held keys and releases are not reported
+	 * @param listener the listener, called with the keycode of the key pressed. null to remove it
+	 */
+	void setEventListener(IntConsumer listener)
+	{
+		eventListener = listener;
+	}
+
+	/**
+	 * notify the event listener of a new key press
+	 * @param keyCode the keycode of the key pressed
+	 */
+	void notifyEventListener(int keyCode)
+	{
+		IntConsumer listener = eventListener;
+		if (listener != null)
+			listener.accept(keyCode);
+	}
+
+	/**
+	 * @param keyCode the keycode of a key
+	 * @return the index of the bit that is set while the key is down
+	 */
+	static int downBit(int keyCode)
+	{
+		return keyCode * 2;
+	}
+
+	/**
+	 * @param keyCode the keycode of a key
+	 * @return the index of the bit that is set once wasPressed() reported the key's current press, until it is released
+	 *         (avoid auto- repeat of keystrokes that jNativeHook likes to do)
+	 */
+	static int blockedBit(int keyCode)
+	{
+		return keyCode * 2 + 1;
 	}
 
 	/**
@@ -97,22 +158,27 @@ public class KeyboardHelper
 	}
 
 	/**
-	 * native key listener to capture key down events and set {@code KeyboardHelper.lastKeyPressed}
+	 * native key listener to capture key down and up events and update the key state
 	 */
 	private class KeyListener implements NativeKeyListener
 	{
 		@Override
 		public void nativeKeyPressed(NativeKeyEvent e)
 		{
-			if (!downKeyCodes.contains(e.getKeyCode()))
-				downKeyCodes.add(e.getKeyCode());
+			events.offer(e.getKeyCode(), true, System.nanoTime());
+
+			// only the first press of a held key is new, the rest are auto- repeats
+			if (keyStates.set(downBit(e.getKeyCode())))
+				notifyEventListener(e.getKeyCode());
 		}
 
 		@Override
 		public void nativeKeyReleased(NativeKeyEvent e)
 		{
-			downKeyCodes.remove((Integer) e.getKeyCode());
-			pressBlockedKeyCodes.remove((Integer) e.getKeyCode());
+			events.offer(e.getKeyCode(), false, System.nanoTime());
+			// clear the down bit first, so wasPressed() cannot report the key again before it is unblocked
+			keyStates.clear(downBit(e.getKeyCode()));
+			keyStates.clear(blockedBit(e.getKeyCode()));
 		}
 
 		@Override
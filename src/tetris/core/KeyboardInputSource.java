@@ -0,0 +1,180 @@
+package tetris.core;
+
+import java.util.BitSet;
+
+import org.jnativehook.keyboard.NativeKeyEvent;
+
+/**
+ * input source reading the keyboard using the global native keyboard hook.
+ * Every press since the last step is applied, in the order they happened, so quick taps between two steps are not
+ * lost. Holding left or right keeps moving the piece once every step, no matter how often it is polled.
+ */
+public class KeyboardInputSource extends InputSource
+{
+	/**
+	 * keyboard hook helper to read key events
+	 */
+	final KeyboardHelper keyboard = new KeyboardHelper();
+
+	/**
+	 * the keys that are down, as seen by the events drained so far.
+	 * a press of a key that is already down is a auto- repeat and ignored
+	 */
+	final BitSet keysDown = new BitSet(KeyboardHelper.KEY_CODES);
+
+	/**
+	 * how many events were applied, and how long they waited to be applied (total and max), in nanoseconds
+	 */
+	long eventsApplied = 0, latencyNanos = 0, maxLatencyNanos = 0;
+
+	/**
+	 * the game step the piece last moved sideways in, so a held key moves it only once per step
+	 */
+	long movedStep = -1;
+
+	@Override
+	public boolean init()
+	{
+		return keyboard.init();
+	}
+
+	@Override
+	public boolean dispose()
+	{
+		return keyboard.dispose();
+	}
+
+	@Override
+	public void setInputListener(Runnable listener)
+	{
+		// only wake up the listener for keys that do something
+		keyboard.setEventListener(listener == null ? null : keyCode ->
+		{
+			if (getAction(keyCode) != 0)
+				listener.run();
+		});
+	}
+
+	@Override
+	public void poll(GameEngine game, InputFrame frame)
+	{
+		// apply all events since the last step, in order
+		InputEventQueue events = keyboard.getEvents();
+		boolean movedHorizontal = false;
+		long now = System.nanoTime();
+		while (events.poll())
+		{
+			int keyCode = events.getKeyCode();
+			if (!events.isPressed())
+			{
+				keysDown.clear(keyCode);
+				continue;
+			}
+
+			// ignore auto- repeats of held keys
+			if (keysDown.get(keyCode))
+				continue;
+			keysDown.set(keyCode);
+
+			int action = getAction(keyCode);
+			if (action != 0)
+			{
+				frame.add(action);
+				movedHorizontal |= action == InputFrame.LEFT || action == InputFrame.RIGHT;
+				recordLatency(now - events.getTime());
+			}
+		}
+
+		// keep moving while LEFT or RIGHT is held (arrow keys and a/d), once per step.
+		// drivers may poll more than once per step, those polls do not move the piece again
+		// if both are held, right wins
+		if (movedHorizontal)
+			movedStep = game.getSteps();
+		else if (movedStep != game.getSteps())
+		{
+			movedStep = game.getSteps();
+			if (keysDown.get(NativeKeyEvent.VC_RIGHT) || keysDown.get(NativeKeyEvent.VC_D))
+				frame.add(InputFrame.RIGHT);
+			else if (keysDown.get(NativeKeyEvent.VC_LEFT) || keysDown.get(NativeKeyEvent.VC_A))
+				frame.add(InputFrame.LEFT);
+		}
+	}
+
+	/**
+	 * get the action a key press triggers
+	 * @param keyCode the keycode of the key pressed
+	 * @return the action (see InputFrame), or 0 if the key does nothing
+	 */
+	int getAction(int keyCode)
+	{
+		switch (keyCode)
+		{
+		// rotate (up arrow and r)
+		case NativeKeyEvent.VC_UP:
+		case NativeKeyEvent.VC_R:
+			return InputFrame.ROTATE;
+
+		// move left and right (arrow keys and a/d)
+		case NativeKeyEvent.VC_LEFT:
+		case NativeKeyEvent.VC_A:
+			return InputFrame.LEFT;
+		case NativeKeyEvent.VC_RIGHT:
+		case NativeKeyEvent.VC_D:
+			return InputFrame.RIGHT;
+
+		// instant fall (down arrow)
+		case NativeKeyEvent.VC_DOWN:
+			return InputFrame.DROP;
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * record how long a event waited until it was applied
+	 * @param nanos the time between the key event and applying it
+	 */
+	void recordLatency(long nanos)
+	{
+		eventsApplied++;
+		latencyNanos += nanos;
+		maxLatencyNanos = Math.max(maxLatencyNanos, nanos);
+	}
+
+	/**
+	 *
+	 * @return how many key presses were applied
+	 */
+	public long getEventsApplied()
+	{
+		return eventsApplied;
+	}
+
+	/**
+	 *
+	 * @return how long key presses waited to be applied on average, in nanoseconds
+	 */
+	public double getMeanLatencyNanos()
+	{
+		return eventsApplied == 0 ? 0 : (double) latencyNanos / eventsApplied;
+	}
+
+	/**
+	 *
+	 * @return how long a key press waited to be applied at most, in nanoseconds
+	 */
+	public long getMaxLatencyNanos()
+	{
+		return maxLatencyNanos;
+	}
+
+	/**
+	 * format the input latency as a human readable summary
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("key presses: %d (%d dropped), latency mean %.1f ms, max %.1f ms", eventsApplied,
+				keyboard.getEvents().getDropped(), getMeanLatencyNanos() / 1e6, maxLatencyNanos / 1e6);
+	}
+}
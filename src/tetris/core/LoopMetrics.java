@@ -0,0 +1,146 @@
+package tetris.core;
+
+/**
+ * timing statistics of the real- time game loop.
+ * Only updated by the game loop thread, read them once the game is over.
+ */
+public class LoopMetrics
+{
+	/**
+	 * how many times the loop woke up
+	 */
+	long iterations = 0;
+
+	/**
+	 * how many logic steps and renders were done
+	 */
+	long steps = 0, renders = 0;
+
+	/**
+	 * how many iterations had to run more than one step to catch up
+	 */
+	long catchUps = 0;
+
+	/**
+	 * how many steps were dropped because the loop fell behind by more than the catch- up limit.
+	 * the game runs slower than real- time by this many steps
+	 */
+	long stepsDropped = 0;
+
+	/**
+	 * how many iterations took longer than a logic step (update and render), so the next one started late
+	 */
+	long overruns = 0;
+
+	/**
+	 * how late the loop woke up after sleeping, in total and at most, in nanoseconds
+	 */
+	long jitterNanos = 0, maxJitterNanos = 0;
+
+	/**
+	 * record a iteration of the loop
+	 * @param stepsRun how many steps were run
+	 * @param caughtUp were more steps run than planned, because the loop fell behind?
+	 * @param rendered was a frame rendered?
+	 * @param lateNanos how much later than planned the loop woke up
+	 * @param workNanos how long the steps and rendering took
+	 * @param stepNanos how long a logic step is
+	 */
+	void recordIteration(int stepsRun, boolean caughtUp, boolean rendered, long lateNanos, long workNanos, long stepNanos)
+	{
+		iterations++;
+		steps += stepsRun;
+		if (rendered)
+			renders++;
+		if (caughtUp)
+			catchUps++;
+		if (workNanos > stepNanos)
+			overruns++;
+
+		lateNanos = Math.max(0, lateNanos);
+		jitterNanos += lateNanos;
+		maxJitterNanos = Math.max(maxJitterNanos, lateNanos);
+	}
+
+	/**
+	 * record steps dropped because the loop could not catch up
+	 * @param count how many steps were dropped
+	 */
+	void recordDroppedSteps(long count)
+	{
+		stepsDropped += count;
+	}
+
+	/**
+	 *
+	 * @return how many logic steps were run
+	 */
+	public long getSteps()
+	{
+		return steps;
+	}
+
+	/**
+	 *
+	 * @return how many frames were rendered
+	 */
+	public long getRenders()
+	{
+		return renders;
+	}
+
+	/**
+	 *
+	 * @return how many iterations had to run more than one step to catch up
+	 */
+	public long getCatchUps()
+	{
+		return catchUps;
+	}
+
+	/**
+	 *
+	 * @return how many steps were dropped because the loop fell too far behind
+	 */
+	public long getStepsDropped()
+	{
+		return stepsDropped;
+	}
+
+	/**
+	 *
+	 * @return how many iterations took longer than a logic step
+	 */
+	public long getOverruns()
+	{
+		return overruns;
+	}
+
+	/**
+	 *
+	 * @return how late the loop woke up on average, in nanoseconds
+	 */
+	public double getMeanJitterNanos()
+	{
+		return iterations == 0 ? 0 : (double) jitterNanos / iterations;
+	}
+
+	/**
+	 *
+	 * @return how late the loop woke up at most, in nanoseconds
+	 */
+	public long getMaxJitterNanos()
+	{
+		return maxJitterNanos;
+	}
+
+	/**
+	 * format the metrics as a human readable summary
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("steps: %d (%d catch- ups, %d dropped), renders: %d, overruns: %d, jitter mean %.1f us, max %.1f us",
+				steps, catchUps, stepsDropped, renders, overruns, getMeanJitterNanos() / 1e3, maxJitterNanos / 1e3);
+	}
+}
@@ -0,0 +1,82 @@
+package tetris.core;
+
+import java.util.Random;
+
+/**
+ * the queue of upcoming piece types, so players and bots can see the next pieces before they spawn.
+ * Types are drawn from the random number generator ahead of time, in the same order they would be drawn without a
+ * preview, so a seeded game gets the same pieces either way.
+ */
+public class PieceQueue
+{
+	/**
+	 * the random number generator drawing the types
+	 */
+	final Random rng;
+
+	/**
+	 * ring buffer of the upcoming types. the next type is at [head]
+	 */
+	final int[] types;
+
+	/**
+	 * index of the next type in {@code types}
+	 */
+	int head = 0;
+
+	/**
+	 * create a queue and draw the first types
+	 * @param random the random number generator to draw types with
+	 * @param previewSize how many upcoming types can be seen
+	 */
+	public PieceQueue(Random random, int previewSize)
+	{
+		rng = random;
+		types = new int[Math.max(1, previewSize)];
+		for (int i = 0; i < types.length; i++)
+			types[i] = drawType();
+	}
+
+	/**
+	 * take the next type out of the queue and draw a new one to replace it
+	 * @return the index of the next shape type, see {@code ShapeRegistry}
+	 */
+	public int next()
+	{
+		int type = types[head];
+		types[head] = drawType();
+		head = (head + 1) % types.length;
+		return type;
+	}
+
+	/**
+	 * look at a upcoming type without taking it
+	 * @param i which type to look at, 0 is the one next() returns
+	 * @return the index of the shape type
+	 */
+	public int peek(int i)
+	{
+		if (i < 0 || i >= types.length)
+			throw new IndexOutOfBoundsException("can only look " + types.length + " pieces ahead, not " + (i + 1));
+
+		return types[(head + i) % types.length];
+	}
+
+	/**
+	 *
+	 * @return how many upcoming types can be seen
+	 */
+	public int getPreviewSize()
+	{
+		return types.length;
+	}
+
+	/**
+	 * draw a random type
+	 * @return the index of the shape type
+	 */
+	int drawType()
+	{
+		return rng.nextInt(ShapeRegistry.getShapeCount());
+	}
+}
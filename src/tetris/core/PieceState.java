@@ -0,0 +1,200 @@
+package tetris.core;
+
+import tetris.core.model.PlayField;
+import tetris.core.model.Shape;
+import tetris.core.model.ShapeMask;
+
+/**
+ * helper to work with the state of a piece (type, rotation and position) packed into a single long.
+ * This allows search and simulation code to try out lots of piece states without creating any objects.
+ *
+ * Layout of the packed state (from the most to the least significant bits):
+ * 8 unused bits (always 0), 8 bits type, 16 bits rotation index (rotation / 90), 16 bits x, 16 bits y.
+ * x and y are stored as signed 16 bit values.
+ *
+ * {@code Shape} stays the (object) facade used by the renderers, use {@code of()} and {@code apply()} to convert
+ * between the two.
+ */
+public final class PieceState
+{
+	/**
+	 * returned by the try* functions if the move was not possible.
+	 * No valid state can be equal to this, as the top bits of a valid state are always 0
+	 */
+	public static final long INVALID = -1L;
+
+	/**
+	 * bit offsets of the fields in the packed state
+	 */
+	static final int TYPE_SHIFT = 48, ROTATION_SHIFT = 32, X_SHIFT = 16;
+
+	/**
+	 * static helper, no instances
+	 */
+	private PieceState()
+	{
+	}
+
+	/**
+	 * pack a piece state
+	 * @param type the index of the shape type, see {@code ShapeRegistry}
+	 * @param rotation the rotation of the piece, in degree (0 - 270)
+	 * @param x the x position of the piece
+	 * @param y the y position of the piece
+	 * @return the packed state
+	 */
+	public static long of(int type, int rotation, int x, int y)
+	{
+		return ((long) (type & 0xFF) << TYPE_SHIFT)
+				| ((long) (rotation / 90) << ROTATION_SHIFT)
+				| ((long) (x & 0xFFFF) << X_SHIFT)
+				| (y & 0xFFFF);
+	}
+
+	/**
+	 * pack the state of a shape
+	 * @param shape the shape to get the state of
+	 * @return the packed state
+	 */
+	public static long of(Shape shape)
+	{
+		return of(shape.getType(), shape.getRotation(), shape.getX(), shape.getY());
+	}
+
+	/**
+	 * set a shape's rotation and position to that of a packed state.
+	 * The type of the shape is not changed.
+	 * @param state the packed state to apply
+	 * @param shape the shape to update
+	 */
+	public static void apply(long state, Shape shape)
+	{
+		shape.setRotation(rotation(state));
+		shape.setPosition(x(state), y(state));
+	}
+
+	/**
+	 * create a new shape from a packed state
+	 * @param state the packed state
+	 * @param field the field the shape is placed on
+	 * @return the new shape
+	 */
+	public static Shape toShape(long state, PlayField field)
+	{
+		Shape shape = ShapeRegistry.createShape(type(state), field, x(state), y(state));
+		shape.setRotation(rotation(state));
+		return shape;
+	}
+
+	/**
+	 *
+	 * @param state the packed state
+	 * @return the index of the shape type
+	 */
+	public static int type(long state)
+	{
+		return (int) (state >>> TYPE_SHIFT) & 0xFF;
+	}
+
+	/**
+	 *
+	 * @param state the packed state
+	 * @return the rotation, in degree (0 - 270)
+	 */
+	public static int rotation(long state)
+	{
+		return ((int) (state >>> ROTATION_SHIFT) & 0x3) * 90;
+	}
+
+	/**
+	 *
+	 * @param state the packed state
+	 * @return the x position
+	 */
+	public static int x(long state)
+	{
+		return (short) (state >>> X_SHIFT);
+	}
+
+	/**
+	 *
+	 * @param state the packed state
+	 * @return the y position
+	 */
+	public static int y(long state)
+	{
+		return (short) state;
+	}
+
+	/**
+	 *
+	 * @param state the packed state
+	 * @return the mask of the piece in its current rotation
+	 */
+	public static ShapeMask mask(long state)
+	{
+		return ShapeRegistry.getDefinition(type(state)).getMask(rotation(state));
+	}
+
+	/**
+	 * check if a piece collides with anything on the field (or is out of bounds)
+	 * @param field the field to check against
+	 * @param state the packed state of the piece
+	 * @return does the piece collide?
+	 */
+	public static boolean collides(PlayField field, long state)
+	{
+		return field.checkCollision(mask(state), x(state), y(state));
+	}
+
+	/**
+	 * try to move a piece
+	 * @param field the field to move on
+	 * @param state the packed state of the piece
+	 * @param dx how much to move on the x axis
+	 * @param dy how much to move on the y axis
+	 * @return the state of the moved piece, or {@code INVALID} if it would collide
+	 */
+	public static long tryMove(PlayField field, long state, int dx, int dy)
+	{
+		int nx = x(state) + dx;
+		int ny = y(state) + dy;
+		if (field.checkCollision(mask(state), nx, ny))
+			return INVALID;
+
+		return of(type(state), rotation(state), nx, ny);
+	}
+
+	/**
+	 * try to rotate a piece by 90 deg clockwise
+	 * @param field the field to rotate on
+	 * @param state the packed state of the piece
+	 * @return the state of the rotated piece, or {@code INVALID} if it would collide
+	 */
+	public static long tryRotate(PlayField field, long state)
+	{
+		int type = type(state);
+		int rotated = (rotation(state) + 90) % 360;
+		if (field.checkCollision(ShapeRegistry.getDefinition(type).getMask(rotated), x(state), y(state)))
+			return INVALID;
+
+		return of(type, rotated, x(state), y(state));
+	}
+
+	/**
+	 * drop a piece straight down until it would collide with something
+	 * @param field the field to drop on
+	 * @param state the packed state of the piece
+	 * @return the state of the piece at its landing position, or {@code INVALID} if it already collides
+	 */
+	public static long drop(PlayField field, long state)
+	{
+		ShapeMask mask = mask(state);
+		int x = x(state);
+		int y = y(state);
+		if (field.checkCollision(mask, x, y))
+			return INVALID;
+
+		return of(type(state), rotation(state), x, field.getLandingY(mask, x, y));
+	}
+}
@@ -4,10 +4,49 @@ import java.util.Random;
 
 import tetris.core.model.PlayField;
 import tetris.core.model.Shape;
+import tetris.core.model.ShapeDefinition;
 import tetris.core.shapes.*;
 
 public final class ShapeRegistry
 {
+	/**
+	 * indices of the shape types, used in {@code SHAPES}
+	 */
+	public static final int LINE = 0, BLOCK = 1, J = 2, L = 3, S = 4, T = 5, Z = 6;
+
+	/**
+	 * the definitions of all shape types, indexed by the type index.
+	 * built once when the registry is loaded and shared by all shapes
+	 */
+	static final ShapeDefinition[] SHAPES = {
+			ShapeLine.DEFINITION,
+			ShapeBlock.DEFINITION,
+			ShapeJ.DEFINITION,
+			ShapeL.DEFINITION,
+			ShapeS.DEFINITION,
+			ShapeT.DEFINITION,
+			ShapeZ.DEFINITION
+	};
+
+	/**
+	 *
+	 * @return the number of shape types there are
+	 */
+	public static int getShapeCount()
+	{
+		return SHAPES.length;
+	}
+
+	/**
+	 * get the definition of a shape type
+	 * @param type the index of the shape type
+	 * @return the shared definition of that type
+	 */
+	public static ShapeDefinition getDefinition(int type)
+	{
+		return SHAPES[type];
+	}
+
 	/**
 	 * get a new, random shape and place it onto the play field
 	 * @param random random number generator to get a random shape
@@ -18,22 +57,35 @@ public final class ShapeRegistry
 	 */
 	public static Shape getRandomShape(Random random, PlayField playField, int sx, int sy)
 	{
-		switch (random.nextInt(7))
+		return createShape(random.nextInt(SHAPES.length), playField, sx, sy);
+	}
+
+	/**
+	 * create a new shape of the given type and place it onto the play field
+	 * @param type the index of the shape type
+	 * @param playField the field to place the shape onto
+	 * @param sx the x position of the shape
+	 * @param sy the y position of the shape
+	 * @return a new shape that is placed at the specified position onto the play field
+	 */
+	public static Shape createShape(int type, PlayField playField, int sx, int sy)
+	{
+		switch (type)
 		{
-		case 0:
+		case LINE:
 		default: // default to a line piece
 			return new ShapeLine(playField, sx, sy);
-		case 1:
+		case BLOCK:
 			return new ShapeBlock(playField, sx, sy);
-		case 2:
+		case J:
 			return new ShapeJ(playField, sx, sy);
-		case 3:
+		case L:
 			return new ShapeL(playField, sx, sy);
-		case 4:
+		case S:
 			return new ShapeS(playField, sx, sy);
-		case 5:
+		case T:
 			return new ShapeT(playField, sx, sy);
-		case 6:
+		case Z:
 			return new ShapeZ(playField, sx, sy);
 		}
 	}
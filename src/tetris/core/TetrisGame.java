@@ -1,61 +1,73 @@
 package tetris.core;
 
-import java.util.Random;
-
-import org.jnativehook.keyboard.NativeKeyEvent;
+import java.util.concurrent.locks.LockSupport;
 
 import tetris.core.model.PlayField;
 import tetris.core.model.Renderer;
 import tetris.core.model.RendererFactory;
-import tetris.core.model.Shape;
 import tetris.core.renderers.console.ConsoleRendererFactory;
 
+/**
+ * real- time driver for the game: reads the input, steps the game engine and renders it.
+ * The engine is stepped at a fixed rate, independent of how often the game is rendered and how long rendering takes.
+ */
 public class TetrisGame
 {
 	/**
-	 * the target frame- / updaterate to run the game at
+	 * the rate the game logic is stepped at. The game speed depends on this, so it is fixed
 	 */
-	final int TARGET_FRAMERATE = 10;
+	static final int STEP_RATE = GameEngine.STEPS_PER_SECOND;
 
 	/**
-	 * how fast pieces fall (amount moved every frame)
+	 * how many steps the loop may run at once to catch up when it fell behind.
+	 * if it is even further behind, the missing time is dropped and the game slows down instead
 	 */
-	final double FALL_SPEED = 2.5 / TARGET_FRAMERATE;
+	static final int MAX_CATCH_UP_STEPS = 5;
 
 	/**
-	 * the field to play on
+	 * how many frames are rendered per second at most
 	 */
-	final PlayField field;
+	int renderRate = STEP_RATE;
 
 	/**
-	 * the renderer used to draw the field
+	 * should the loop sleep until the game changes or input arrives, instead of waking up every step?
 	 */
-	final Renderer renderer;
+	boolean eventDriven = false;
+
+	/**
+	 * timing statistics of the loop
+	 */
+	final LoopMetrics metrics = new LoopMetrics();
 
 	/**
-	 * keyboard hook helper to read key down events
+	 * input frame without actions, for steps that only apply gravity
 	 */
-	final KeyboardHelper keyboard;
+	final InputFrame emptyFrame = new InputFrame();
 
 	/**
-	 * a random number generator for the game
+	 * the game logic
 	 */
-	final Random rng = new Random();
+	final GameEngine engine;
 
 	/**
-	 * flag to stop running the game
+	 * the field to play on
+	 */
+	final PlayField field;
+
+	/**
+	 * the renderer used to draw the field
 	 */
-	boolean endGame = false;
+	final Renderer renderer;
 
 	/**
-	 * the currently held shape
+	 * the source of the player's input
 	 */
-	Shape currentPiece;
+	final InputSource input;
 
 	/**
-	 * the current score
+	 * the input frame reused for every update
 	 */
-	double score = 0;
+	final InputFrame inputFrame = new InputFrame();
 
 	/**
 	 * init the tetris game with a default game field size of 10x20 blocks and default renderer
@@ -75,154 +87,259 @@ public class TetrisGame
 	}
 
 	/**
-	 * init the tetris game with a game field size of WxH blocks
+	 * init the tetris game with a game field size of WxH blocks, played using the keyboard
 	 * @param w the width of the play field
 	 * @param h the height of the play field
 	 * @param renderFactory a factory for the renderer to use
 	 */
 	public TetrisGame(int w, int h, RendererFactory renderFactory)
 	{
-		field = new PlayField(w, h);
-		renderer = renderFactory.build(field);
-		keyboard = new KeyboardHelper();
+		this(new GameEngine(w, h), renderFactory, new KeyboardInputSource());
 	}
 
 	/**
-	 * start and play the game until finish
-	 * @throws InterruptedException when framerate sleep fails for some reason, idk ¯\_(ツ)_/¯
+	 * init the tetris game for a existing game engine
+	 * @param game the game engine to drive
+	 * @param renderFactory a factory for the renderer to use
+	 * @param inputSource the source of the player's input
 	 */
-	public void play() throws InterruptedException
+	public TetrisGame(GameEngine game, RendererFactory renderFactory, InputSource inputSource)
 	{
-		// init keyboard hooks
-		if (!keyboard.init())
-		{
-			System.err.println("Error in keyboard initialization! Exiting game...");
-			return;
-		}
-
-		// put the first piece
-		getNewPiece();
-
-		// run the main game loop
-		long sleepTargetMs = 1000 / TARGET_FRAMERATE;
-		while (!endGame)
-		{
-			// run update and measure time taken
-			long updateDuration = System.currentTimeMillis();
-			onUpdate();
-			updateDuration = System.currentTimeMillis() - updateDuration;
+		engine = game;
+		field = engine.getField();
+		renderer = renderFactory.build(field);
+		input = inputSource;
+	}
 
-			// sleep some ms to reach target framerate stable
-			Thread.sleep(Math.max(0, sleepTargetMs - updateDuration));
-		}
+	/**
+	 * set how many frames are rendered per second at most, with both the fixed and the event- driven loop.
+	 * Frames are only rendered if the game changed since the last one, so with the fixed loop rates above the step rate
+	 * do nothing
+	 * @param fps the frames per second to render
+	 * @return the game instance
+	 */
+	public TetrisGame setRenderRate(int fps)
+	{
+		renderRate = Math.max(1, fps);
+		return this;
+	}
 
-		// game ended:
-		// disable keyboard input
-		if (!keyboard.dispose())
-			System.err.println("error disposing keyboard! \nYou may have to force- exit the game.");
+	/**
+	 * enable or disable the event- driven loop.
+	 * The event- driven loop sleeps until the current piece moves to the next row or input arrives, and only renders
+	 * if something changed. Input is applied as soon as it arrives, between steps. The game runs at the same speed as
+	 * with the fixed loop, but a idle game barely uses any CPU.
+	 * Only use this with input sources that call their input listener, polling sources are only polled when the loop
+	 * wakes up anyway.
+	 * @param enable should the loop be event- driven?
+	 * @return the game instance
+	 */
+	public TetrisGame setEventDriven(boolean enable)
+	{
+		eventDriven = enable;
+		return this;
+	}
 
-		// show gameover screen
-		renderer.drawGameOver(score);
+	/**
+	 *
+	 * @return timing statistics of the game loop
+	 */
+	public LoopMetrics getLoopMetrics()
+	{
+		return metrics;
 	}
 
 	/**
-	 * update the game. 
-	 * called once every frame.
+	 * start and play the game until finish
 	 */
-	void onUpdate()
+	public void play()
 	{
-		// handle left/right movement of the current piece
-		handlePieceMovement();
+		// init input (keyboard hooks)
+		if (!input.init())
+		{
+			System.err.println("Error in input initialization! Exiting game...");
+			return;
+		}
 
-		// move the piece down
-		handlePieceGravity();
+		// run the main game loop
+		if (eventDriven)
+			runEventLoop();
+		else
+			runFixedLoop();
 
-		// check for complete lines and add them to the score
-		score += field.removeCompleteLines() * 10;
+		// game ended:
+		// disable input
+		if (!input.dispose())
+			System.err.println("error disposing input! \nYou may have to force- exit the game.");
 
-		// draw screen
-		renderer.draw(currentPiece, score);
+		// show gameover screen
+		renderer.drawGameOver(engine.getScore());
 	}
 
 	/**
-	 * handles the falling of the current piece, aswell as the "instant fall" button
+	 * run the game loop with a fixed timestep until the game is over:
+	 * time passed is collected in a accumulator, and the game is stepped once for every step period in it
 	 */
-	void handlePieceGravity()
+	void runFixedLoop()
 	{
-		// do not update the piece when there is none
-		if (currentPiece == null)
-			return;
-
-		// move the current piece down by one
-		if (!currentPiece.moveDown(FALL_SPEED))
+		long stepNanos = 1_000_000_000L / STEP_RATE;
+		long renderNanos = 1_000_000_000L / renderRate;
+		long accumulator = stepNanos;
+		long previous = System.nanoTime();
+		long nextRender = previous;
+		long wakeTarget = previous;
+		boolean steppedSinceRender = false;
+		while (!engine.isGameOver())
 		{
-			// collided while moving, place the piece at the current position
-			onPieceCollided();
+			long now = System.nanoTime();
+			long late = now - wakeTarget;
+			accumulator += now - previous;
+			previous = now;
+
+			// step the game for all step periods passed, up to the catch- up limit
+			int steps = 0;
+			while (accumulator >= stepNanos && steps < MAX_CATCH_UP_STEPS && !engine.isGameOver())
+			{
+				onUpdate();
+				accumulator -= stepNanos;
+				steps++;
+			}
+
+			// too far behind to catch up, drop the time instead of stepping even more next iteration
+			if (accumulator >= stepNanos && !engine.isGameOver())
+			{
+				metrics.recordDroppedSteps(accumulator / stepNanos);
+				accumulator %= stepNanos;
+			}
+
+			// render if the game changed and the next frame is due
+			steppedSinceRender |= steps > 0;
+			boolean render = steppedSinceRender && now - nextRender >= 0 && !engine.isGameOver();
+			if (render)
+			{
+				render = onRender();
+				steppedSinceRender = false;
+
+				// if rendering fell behind, start over from now instead of rendering a burst of frames
+				nextRender += renderNanos;
+				if (now - nextRender >= 0)
+					nextRender = now + renderNanos;
+			}
+
+			long end = System.nanoTime();
+			metrics.recordIteration(steps, steps > 1, render, late, end - now, stepNanos);
+
+			// sleep until the next step is due. if it is already due (overrun), waking up now is not late
+			wakeTarget = Math.max(end, now + stepNanos - accumulator);
+			long sleep;
+			while ((sleep = wakeTarget - System.nanoTime()) > 0)
+				LockSupport.parkNanos(sleep);
 		}
 
-		// if user pressed DOWN, move the current piece to it's final position
-		if (keyboard.wasPressed(NativeKeyEvent.VC_DOWN))
-		{
-			// move until a collision happens
-			while (currentPiece.moveDown(FALL_SPEED))
-				;
-
-			// collided while moving, place the piece at the current position
-			onPieceCollided();
-		}
 	}
 
 	/**
-	 * handle keyboard intput of LEFT and RIGHT to move the current piece horizontally
-	 * @return did the piece collide while moving?
+	 * run the event- driven game loop until the game is over:
+	 * the loop sleeps until the next step that changes the game is due or input arrives, whichever comes first.
+	 * Steps in between only move the piece within its row, so they are run all at once when the loop wakes up
 	 */
-	boolean handlePieceMovement()
+	void runEventLoop()
 	{
-		// ignore keyboard input when no piece is falling
-		if (currentPiece == null)
-			return false;
-
-		// check rotate (up arrow and r)
-		if (keyboard.wasPressed(NativeKeyEvent.VC_UP) || keyboard.wasPressed(NativeKeyEvent.VC_R))
-			currentPiece.rotate();
-
-		// check LEFT movement (left arrow and a)
-		int move = 0;
-		if (keyboard.isDown(NativeKeyEvent.VC_LEFT) || keyboard.isDown(NativeKeyEvent.VC_A))
-			move = -1;
-
-		// check RIGHT movement (right arrow and d)
-		if (keyboard.isDown(NativeKeyEvent.VC_RIGHT) || keyboard.isDown(NativeKeyEvent.VC_D))
-			move = 1;
+		// wake up the loop when input arrives
+		Thread loopThread = Thread.currentThread();
+		input.setInputListener(() -> LockSupport.unpark(loopThread));
+
+		long stepNanos = 1_000_000_000L / STEP_RATE;
+		long renderNanos = 1_000_000_000L / renderRate;
+		long nextStep = System.nanoTime();
+		long nextRender = nextStep;
+		long wakeTarget = System.nanoTime();
+		long skippableSteps = 0;
+		boolean inputActive = false;
+
+		// the frame version drawn last, to only render if something changed
+		long drawnVersion = -1;
+		while (!engine.isGameOver())
+		{
+			long now = System.nanoTime();
+			long late = now - wakeTarget;
+
+			// run all steps that are due. if more are due than expected, the loop fell behind:
+			// catch up on at most MAX_CATCH_UP_STEPS, and drop the time of the rest
+			int steps = 0;
+			if (now - nextStep >= 0)
+			{
+				long due = (now - nextStep) / stepNanos + 1;
+				long allowed = skippableSteps + MAX_CATCH_UP_STEPS;
+				if (due > allowed)
+				{
+					metrics.recordDroppedSteps(due - allowed);
+					nextStep += (due - allowed) * stepNanos;
+					due = allowed;
+				}
+
+				for (; steps < due && !engine.isGameOver(); steps++)
+					engine.step(emptyFrame);
+				nextStep += due * stepNanos;
+			}
+
+			// apply input that arrived
+			input.poll(engine, inputFrame.clear());
+			// held keys only add actions once per step, so polls without a step in between keep the previous state
+			inputActive = inputFrame.size() > 0 || (steps == 0 && inputActive);
+			if (inputActive)
+				engine.applyInput(inputFrame);
+
+			// render if anything changed and the next frame is due
+			boolean changed = !engine.isGameOver() && engine.getFrameVersion() != drawnVersion;
+			boolean render = changed && now - nextRender >= 0;
+			if (render)
+			{
+				onRender();
+				drawnVersion = engine.getFrameVersion();
+
+				// if rendering fell behind, start over from now instead of rendering a burst of frames
+				nextRender += renderNanos;
+				if (now - nextRender >= 0)
+					nextRender = now + renderNanos;
+			}
+
+			long end = System.nanoTime();
+			metrics.recordIteration(steps, steps > skippableSteps + 1, render, late, end - now, stepNanos);
+
+			// sleep until the step that changes the game is due, or until input arrives.
+			// while input is active (keys held), wake up every step to poll it like the fixed loop does
+			skippableSteps = inputActive ? 0 : engine.getStepsUntilChange() - 1;
+			wakeTarget = Math.max(end, nextStep + skippableSteps * stepNanos);
+
+			// a change that could not be rendered yet is rendered once the next frame is due
+			if (changed && !render)
+				wakeTarget = Math.max(end, Math.min(wakeTarget, nextRender));
+			long sleep = wakeTarget - System.nanoTime();
+			if (sleep > 0)
+				LockSupport.parkNanos(this, sleep);
+		}
 
-		// move the current piece
-		return !currentPiece.moveHorizontal(move);
+		input.setInputListener(null);
 	}
 
 	/**
-	 * called when the current piece collided with something and should be placed
+	 * update the game.
+	 * called once every step.
 	 */
-	void onPieceCollided()
+	void onUpdate()
 	{
-		// place current piece and get a new one
-		field.placeShape(currentPiece);
-		getNewPiece();
-
-		// check if the new piece collides
-		if (field.checkCollision(currentPiece))
-		{
-			// new piece instantly collided with something, == game- over
-			// exit the main game loop and remove the current piece
-			endGame = true;
-			currentPiece = null;
-		}
+		// collect input and advance the game by one step
+		input.poll(engine, inputFrame.clear());
+		engine.step(inputFrame);
 	}
 
 	/**
-	 * put a new piece into the currentPiece variable
+	 * draw the game. the renderer skips the frame if nothing changed since the last one
+	 * @return was the frame drawn?
 	 */
-	void getNewPiece()
+	boolean onRender()
 	{
-		currentPiece = ShapeRegistry.getRandomShape(rng, field, 0, 0);
+		return renderer.draw(engine.getCurrentPiece(), engine.getScore(), engine.getFrameVersion());
 	}
 }
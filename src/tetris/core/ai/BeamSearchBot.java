@@ -0,0 +1,601 @@
+package tetris.core.ai;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import tetris.core.GameEngine;
+import tetris.core.InputFrame;
+import tetris.core.InputSource;
+import tetris.core.PieceQueue;
+import tetris.core.PieceState;
+import tetris.core.ShapeRegistry;
+import tetris.core.model.PlayField;
+import tetris.core.model.Shape;
+import tetris.core.simulation.InputSourceFactory;
+
+/**
+ * a bot that looks ahead at the upcoming pieces of the piece queue using a beam search.
+ *
+ * Every level of the search places one more piece: all placements of the piece are scored on every board of the
+ * beam, and the best boards (up to the beam width) are kept for the next level. The bot then plays the first placement
+ * leading to the best board of the deepest level searched.
+ *
+ * The boards of a level are expanded in parallel on a fork join pool. Every beam slot owns its board, evaluator and
+ * scratch arrays and each task only writes to its own slot. The only state the workers share is the transposition
+ * table caching the placement scores, which is written without locks (see {@code TranspositionTable} for why that is
+ * safe). Nothing is allocated per move besides the fork join tasks.
+ *
+ * If a time budget is set, the search stops once it ran out and the deepest completely searched level is used. The
+ * deadline is checked between placements, not only between boards, so a level is abandoned within a few evaluations
+ * of running out. The first level is always searched completely, so a move can only take longer than the budget if
+ * searching the current piece alone does.
+ */
+public class BeamSearchBot extends InputSource
+{
+	/**
+	 * how many pieces to look ahead, including the current piece. limited by the size of the piece preview
+	 */
+	int depth = 3;
+
+	/**
+	 * how many boards are kept per level
+	 */
+	int beamWidth = 16;
+
+	/**
+	 * how many placements are scored between two checks of the deadline
+	 */
+	static final int DEADLINE_CHECK_INTERVAL = 8;
+
+	/**
+	 * how long a move may take, in nanoseconds. 0 for no limit
+	 */
+	long timeBudgetNanos = 1_000_000_000L / GameEngine.STEPS_PER_SECOND / 2;
+
+	/**
+	 * the pool the boards of a level are expanded on
+	 */
+	ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	/**
+	 * cache of the scores of placements on boards evaluated before. null if disabled
+	 */
+	TranspositionTable table = new TranspositionTable(1 << 16);
+
+	/**
+	 * the boards of the current and the next level of the beam, one per slot
+	 */
+	PlayField[] fields = new PlayField[0], nextFields = new PlayField[0];
+
+	/**
+	 * the first placement leading to the board of each slot, and the score of the board
+	 */
+	long[] roots, nextRoots;
+	double[] scores, nextScores;
+
+	/**
+	 * how many slots of the current level are used
+	 */
+	int beamSize;
+
+	/**
+	 * the evaluator of each slot
+	 */
+	BoardEvaluator[] evaluators;
+
+	/**
+	 * the placements found on the board of each slot and their scores, [slot][placement]
+	 */
+	long[][] candidates;
+	double[][] candidateScores;
+
+	/**
+	 * how many placements were found on the board of each slot, -1 if the board was skipped because the time ran out
+	 */
+	int[] candidateCounts;
+
+	/**
+	 * min- heap of the best candidates of a level, by score. A candidate is stored as (slot * maxPlacements + index)
+	 */
+	int[] selected;
+
+	/**
+	 * how many placements a piece can have at most on the fields searched
+	 */
+	int maxPlacements;
+
+	/**
+	 * statistics: pieces placed, levels searched in total and moves that ran out of time
+	 */
+	long decisions = 0, levelsSearched = 0, timeouts = 0;
+
+	/**
+	 * set how many pieces to look ahead
+	 * @param pieces the number of pieces, including the current piece. at least 1
+	 * @return the bot instance
+	 */
+	public BeamSearchBot setDepth(int pieces)
+	{
+		depth = Math.max(1, pieces);
+		return this;
+	}
+
+	/**
+	 * set how many boards are kept per level
+	 * @param width the beam width, at least 1
+	 * @return the bot instance
+	 */
+	public BeamSearchBot setBeamWidth(int width)
+	{
+		beamWidth = Math.max(1, width);
+		return this;
+	}
+
+	/**
+	 * set how long a move may take.
+	 * Set it well below the time between two steps, so the piece is placed before gravity moves it
+	 * @param nanos the time budget, in nanoseconds. 0 for no limit
+	 * @return the bot instance
+	 */
+	public BeamSearchBot setTimeBudget(long nanos)
+	{
+		timeBudgetNanos = Math.max(0, nanos);
+		return this;
+	}
+
+	/**
+	 * set the pool the search runs on
+	 * @param forkJoinPool the pool to use
+	 * @return the bot instance
+	 */
+	public BeamSearchBot setPool(ForkJoinPool forkJoinPool)
+	{
+		pool = forkJoinPool;
+		return this;
+	}
+
+	/**
+	 * set the cache of placement scores.
+	 * Different orders of placements often lead to the same board, the cache saves evaluating their placements again.
+	 * The table is keyed by board and placement only, so clear it if it is shared with a bot using other weights
+	 * @param transpositionTable the table to use, or null to disable caching
+	 * @return the bot instance
+	 */
+	public BeamSearchBot setTranspositionTable(TranspositionTable transpositionTable)
+	{
+		table = transpositionTable;
+		return this;
+	}
+
+	@Override
+	public void poll(GameEngine game, InputFrame frame)
+	{
+		Shape piece = game.getCurrentPiece();
+		if (piece == null)
+			return;
+
+		// move the piece to the best placement and drop it
+		long start = PieceState.of(piece);
+		long best = findBestPlacement(game.getField(), start, game.getPieceQueue());
+		if (best != PieceState.INVALID)
+		{
+			PlacementEnumerator.addMoves(start, best, frame);
+			decisions++;
+		}
+	}
+
+	/**
+	 * find the placement of a piece that leads to the best board after placing the upcoming pieces
+	 * @param field the field the piece is on. it is not changed
+	 * @param start the packed state of the piece
+	 * @param queue the queue of upcoming pieces
+	 * @return the best placement, or {@code PieceState.INVALID} if the piece cannot be placed anywhere
+	 */
+	public long findBestPlacement(PlayField field, long start, PieceQueue queue)
+	{
+		long deadline = System.nanoTime() + timeBudgetNanos;
+		ensureCapacity(field);
+		if (table != null)
+			table.newGeneration();
+
+		// the beam starts with the current board only
+		fields[0].copyFrom(field);
+		roots[0] = PieceState.INVALID;
+		beamSize = 1;
+
+		long best = PieceState.INVALID;
+		int levels = Math.min(depth, 1 + queue.getPreviewSize());
+		for (int level = 0; level < levels; level++)
+		{
+			// upcoming pieces start where the engine spawns them
+			long piece = level == 0 ? start : PieceState.of(queue.peek(level - 1), 0, GameEngine.SPAWN_X, GameEngine.SPAWN_Y);
+
+			// out of time, play the best placement found so far. a level that was not expanded completely is dropped
+			long levelDeadline = level == 0 || timeBudgetNanos == 0 ? Long.MAX_VALUE : deadline;
+			if (!expand(piece, levelDeadline))
+			{
+				timeouts++;
+				break;
+			}
+
+			// stop if no board had any placement, every branch is game over
+			if (!select(level == 0, level + 1 < levels, levelDeadline))
+				break;
+
+			best = roots[getBestSlot()];
+			levelsSearched++;
+
+			// the level was scored completely, but ran out of time building the boards of the next one
+			if (levelDeadline != Long.MAX_VALUE && level + 1 < levels && System.nanoTime() >= levelDeadline)
+			{
+				timeouts++;
+				break;
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * score all placements of a piece on every board of the beam, in parallel
+	 * @param piece the packed state of the piece to place
+	 * @param deadline the System.nanoTime() after which expanding is stopped, even in the middle of a board
+	 * @return were all boards expanded before the deadline?
+	 */
+	boolean expand(long piece, long deadline)
+	{
+		boolean timed = deadline != Long.MAX_VALUE;
+		forEach(beamSize, slot ->
+		{
+			// out of time, skip the board
+			candidateCounts[slot] = -1;
+			if (timed && System.nanoTime() >= deadline)
+				return;
+
+			PlayField board = fields[slot];
+			long[] placements = candidates[slot];
+			double[] placementScores = candidateScores[slot];
+			BoardEvaluator evaluator = evaluators[slot];
+
+			int count = PlacementEnumerator.enumerate(board, piece, placements);
+			long boardHash = table == null ? 0 : board.hash();
+			for (int i = 0; i < count; i++)
+			{
+				// out of time, abandon the board (and with it the level)
+				if (timed && i % DEADLINE_CHECK_INTERVAL == DEADLINE_CHECK_INTERVAL - 1 && System.nanoTime() >= deadline)
+					return;
+
+				// take the score from the cache if the placement was evaluated on this board before
+				long p = placements[i];
+				long key = TranspositionTable.key(boardHash, p);
+				double score = table == null ? Double.NaN : table.get(key);
+				if (Double.isNaN(score))
+				{
+					score = evaluator.evaluate(board, PieceState.mask(p), PieceState.x(p), PieceState.y(p));
+					if (table != null)
+						table.put(key, score, 0);
+				}
+
+				placementScores[i] = score;
+			}
+
+			candidateCounts[slot] = count;
+		});
+
+		for (int slot = 0; slot < beamSize; slot++)
+			if (candidateCounts[slot] < 0)
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * select the best candidates of the level as the next beam
+	 * @param rootLevel is this the first level? then the candidates are the root placements
+	 * @param buildBoards should the boards of the next beam be built? not needed on the last level
+	 * @param deadline the System.nanoTime() after which no more boards are built. The beam's roots and scores are
+	 *            always set, but if the deadline passed, some boards may be missing
+	 * @return was any candidate found?
+	 */
+	boolean select(boolean rootLevel, boolean buildBoards, long deadline)
+	{
+		// keep the best candidates in a min- heap, so the worst kept one is at the top and can be replaced quickly
+		int count = 0;
+		for (int slot = 0; slot < beamSize; slot++)
+			for (int i = 0; i < candidateCounts[slot]; i++)
+			{
+				int candidate = slot * maxPlacements + i;
+				if (count < beamWidth)
+				{
+					selected[count] = candidate;
+					siftUp(count++);
+				}
+				else if (getCandidateScore(candidate) > getCandidateScore(selected[0]))
+				{
+					selected[0] = candidate;
+					siftDown(0, count);
+				}
+			}
+
+		if (count == 0)
+			return false;
+
+		// move the selected candidates to the next beam, building their boards in parallel
+		forEach(count, next ->
+		{
+			int candidate = selected[next];
+			int slot = candidate / maxPlacements;
+			long p = candidates[slot][candidate % maxPlacements];
+			if (buildBoards && (deadline == Long.MAX_VALUE || System.nanoTime() < deadline))
+			{
+				PlayField board = nextFields[next];
+				board.copyFrom(fields[slot]);
+				board.placeShape(ShapeRegistry.getDefinition(PieceState.type(p)), PieceState.rotation(p), PieceState.x(p),
+						PieceState.y(p));
+				board.removeCompleteLines();
+			}
+
+			nextRoots[next] = rootLevel ? p : roots[slot];
+			nextScores[next] = candidateScores[slot][candidate % maxPlacements];
+		});
+
+		// swap the levels
+		PlayField[] swapFields = fields;
+		fields = nextFields;
+		nextFields = swapFields;
+		long[] swapRoots = roots;
+		roots = nextRoots;
+		nextRoots = swapRoots;
+		double[] swapScores = scores;
+		scores = nextScores;
+		nextScores = swapScores;
+		beamSize = count;
+		return true;
+	}
+
+	/**
+	 *
+	 * @return the slot of the current beam with the best score
+	 */
+	int getBestSlot()
+	{
+		int best = 0;
+		for (int slot = 1; slot < beamSize; slot++)
+			if (scores[slot] > scores[best])
+				best = slot;
+
+		return best;
+	}
+
+	/**
+	 * @param candidate the candidate, as stored in {@code selected}
+	 * @return the score of the candidate
+	 */
+	double getCandidateScore(int candidate)
+	{
+		return candidateScores[candidate / maxPlacements][candidate % maxPlacements];
+	}
+
+	/**
+	 * move a candidate up the heap until its parent has a lower score
+	 * @param i the index of the candidate in the heap
+	 */
+	void siftUp(int i)
+	{
+		while (i > 0)
+		{
+			int parent = (i - 1) / 2;
+			if (getCandidateScore(selected[parent]) <= getCandidateScore(selected[i]))
+				return;
+
+			swapSelected(i, parent);
+			i = parent;
+		}
+	}
+
+	/**
+	 * move a candidate down the heap until both children have a higher score
+	 * @param i the index of the candidate in the heap
+	 * @param size how many candidates are in the heap
+	 */
+	void siftDown(int i, int size)
+	{
+		while (true)
+		{
+			int min = i;
+			int left = 2 * i + 1, right = left + 1;
+			if (left < size && getCandidateScore(selected[left]) < getCandidateScore(selected[min]))
+				min = left;
+			if (right < size && getCandidateScore(selected[right]) < getCandidateScore(selected[min]))
+				min = right;
+			if (min == i)
+				return;
+
+			swapSelected(i, min);
+			i = min;
+		}
+	}
+
+	/**
+	 * swap two candidates in the heap
+	 * @param a the index of the first candidate
+	 * @param b the index of the second candidate
+	 */
+	void swapSelected(int a, int b)
+	{
+		int swap = selected[a];
+		selected[a] = selected[b];
+		selected[b] = swap;
+	}
+
+	/**
+	 * make sure all slots and scratch arrays exist for the beam width and field searched.
+	 * only allocates if either changed since the last move
+	 * @param field the field searched on
+	 */
+	void ensureCapacity(PlayField field)
+	{
+		if (field.getWidth() > Long.SIZE)
+			throw new IllegalArgumentException("the bot only supports fields up to " + Long.SIZE + " blocks wide");
+
+		int placements = PlacementEnumerator.getMaxPlacements(field);
+		if (fields.length == beamWidth && placements == maxPlacements && fields[0].getWidth() == field.getWidth()
+				&& fields[0].getHeight() == field.getHeight())
+			return;
+
+		maxPlacements = placements;
+		fields = new PlayField[beamWidth];
+		nextFields = new PlayField[beamWidth];
+		evaluators = new BoardEvaluator[beamWidth];
+		candidates = new long[beamWidth][maxPlacements];
+		candidateScores = new double[beamWidth][maxPlacements];
+		for (int slot = 0; slot < beamWidth; slot++)
+		{
+			fields[slot] = new PlayField(field.getWidth(), field.getHeight());
+			nextFields[slot] = new PlayField(field.getWidth(), field.getHeight());
+			evaluators[slot] = new BoardEvaluator();
+		}
+
+		roots = new long[beamWidth];
+		nextRoots = new long[beamWidth];
+		scores = new double[beamWidth];
+		nextScores = new double[beamWidth];
+		candidateCounts = new int[beamWidth];
+		selected = new int[beamWidth];
+	}
+
+	/**
+	 * run a action for every index in [0, count) on the pool.
+	 * Runs on the calling thread if there is only one index, or the pool has a single worker: nothing can run in
+	 * parallel then, and handing the work to the worker only adds latency
+	 * @param count how many indices there are
+	 * @param action the action to run
+	 */
+	void forEach(int count, IntConsumer action)
+	{
+		if (count == 1 || pool.getParallelism() <= 1)
+			for (int i = 0; i < count; i++)
+				action.accept(i);
+		else
+			pool.invoke(new RangeTask(0, count, action));
+	}
+
+	/**
+	 *
+	 * @return how many pieces were placed by the bot
+	 */
+	public long getDecisions()
+	{
+		return decisions;
+	}
+
+	/**
+	 *
+	 * @return how many boards were evaluated by all slots
+	 */
+	public long getEvaluations()
+	{
+		long evaluations = 0;
+		if (evaluators != null)
+			for (BoardEvaluator evaluator : evaluators)
+				evaluations += evaluator.getEvaluations();
+
+		return evaluations;
+	}
+
+	/**
+	 *
+	 * @return the cache of placement scores, or null if disabled
+	 */
+	public TranspositionTable getTranspositionTable()
+	{
+		return table;
+	}
+
+	/**
+	 * format the bot's statistics as a human readable summary
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("%d pieces placed, %d placements evaluated, %.2f levels per move, %d moves out of time", decisions,
+				getEvaluations(), decisions == 0 ? 0 : (double) levelsSearched / decisions, timeouts)
+				+ (table == null ? "" : ", cache: " + table);
+	}
+
+	/**
+	 * fork join task running a action for a range of indices, splitting the range in half until single indices are left
+	 */
+	static class RangeTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * the range of indices, from inclusive, to exclusive
+		 */
+		final int from, to;
+
+		/**
+		 * the action to run for every index
+		 */
+		final IntConsumer action;
+
+		/**
+		 * create a task for a range of indices
+		 * @param from the first index
+		 * @param to the index after the last one
+		 * @param action the action to run for every index
+		 */
+		RangeTask(int from, int to, IntConsumer action)
+		{
+			this.from = from;
+			this.to = to;
+			this.action = action;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (to - from == 1)
+			{
+				action.accept(from);
+				return;
+			}
+
+			int mid = (from + to) >>> 1;
+			invokeAll(new RangeTask(from, mid, action), new RangeTask(mid, to, action));
+		}
+	}
+
+	/**
+	 * factory for beam search bots
+	 */
+	public static class Factory extends InputSourceFactory
+	{
+		/**
+		 * the settings of the bots built
+		 */
+		final int depth, beamWidth;
+		final long timeBudgetNanos;
+
+		/**
+		 * create a factory for beam search bots
+		 * @param depth how many pieces to look ahead, including the current piece
+		 * @param beamWidth how many boards are kept per level
+		 * @param timeBudgetNanos how long a move may take, in nanoseconds. 0 for no limit
+		 */
+		public Factory(int depth, int beamWidth, long timeBudgetNanos)
+		{
+			this.depth = depth;
+			this.beamWidth = beamWidth;
+			this.timeBudgetNanos = timeBudgetNanos;
+		}
+
+		@Override
+		public InputSource build(long seed)
+		{
+			return new BeamSearchBot().setDepth(depth).setBeamWidth(beamWidth).setTimeBudget(timeBudgetNanos);
+		}
+	}
+}
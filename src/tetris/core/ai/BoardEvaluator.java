@@ -0,0 +1,153 @@
+package tetris.core.ai;
+
+import java.util.Arrays;
+
+import tetris.core.model.PlayField;
+import tetris.core.model.ShapeMask;
+
+/**
+ * scores the board that results from placing a piece, using a weighted sum of board features:
+ * aggregate column height, complete lines, holes and bumpiness (height difference of neighboring columns).
+ *
+ * The board is never copied: the features are computed in a single pass over the occupancy bit masks of the field,
+ * with the piece's rows OR'ed in on the fly. Complete lines are skipped, so the board is scored like the lines were
+ * already removed. Because of the bit masks, only fields up to 64 blocks wide are supported.
+ *
+ * Not thread safe, every thread needs its own evaluator.
+ */
+public class BoardEvaluator
+{
+	/**
+	 * the weights of the features. Negative weights penalize a feature.
+	 * the defaults are well known weights for this feature set, tuned by a genetic algorithm
+	 */
+	double heightWeight = -0.510066, linesWeight = 0.760666, holesWeight = -0.35663, bumpinessWeight = -0.184483;
+
+	/**
+	 * scratch array for the column heights of the evaluated board. only reallocated if the field width changes
+	 */
+	int[] heights = new int[0];
+
+	/**
+	 * how many boards were evaluated
+	 */
+	long evaluations = 0;
+
+	/**
+	 * set the weights of the features
+	 * @param height weight of the sum of all column heights
+	 * @param lines weight of the number of complete lines
+	 * @param holes weight of the number of blank blocks with a non- blank block above them
+	 * @param bumpiness weight of the sum of height differences of neighboring columns
+	 * @return the evaluator instance
+	 */
+	public BoardEvaluator setWeights(double height, double lines, double holes, double bumpiness)
+	{
+		heightWeight = height;
+		linesWeight = lines;
+		holesWeight = holes;
+		bumpinessWeight = bumpiness;
+		return this;
+	}
+
+	/**
+	 * score the board that results from placing a piece on the field.
+	 * The field is not changed.
+	 * @param field the field the piece is placed on
+	 * @param mask the mask of the piece
+	 * @param sx the x position of the piece
+	 * @param sy the y position of the piece. The piece must not collide there
+	 * @return the score of the board. higher is better
+	 */
+	public double evaluate(PlayField field, ShapeMask mask, int sx, int sy)
+	{
+		evaluations++;
+		int w = field.getWidth();
+		int h = field.getHeight();
+		long full = w == Long.SIZE ? -1L : (1L << w) - 1;
+		if (heights.length != w)
+			heights = new int[w];
+
+		// only the lines of the piece can become complete, everything else was complete and removed before
+		int lines = 0;
+		for (int y = mask.getMinY(); y <= mask.getMaxY(); y++)
+			if (getRow(field, mask, sx, sy, sy + y) == full)
+				lines++;
+
+		// lines above the top- most block are blank, so start there
+		int top = sy + mask.getMinY();
+		for (int x = 0; x < w; x++)
+			top = Math.min(top, h - field.getColumnHeight(x));
+
+		// walk the lines top- down. a column's height is set by the first block found in it, every blank block below a
+		// non- blank one is a hole. complete lines are skipped, so everything above them counts as moved down
+		Arrays.fill(heights, 0);
+		long covered = 0;
+		int holes = 0;
+		int lineHeight = h - top - lines;
+		for (int y = top; y < h; y++)
+		{
+			long row = getRow(field, mask, sx, sy, y);
+			if (row == full)
+				continue;
+
+			holes += Long.bitCount(covered & ~row);
+			for (long tops = row & ~covered; tops != 0; tops &= tops - 1)
+				heights[Long.numberOfTrailingZeros(tops)] = lineHeight;
+
+			covered |= row;
+			lineHeight--;
+		}
+
+		// sum up the heights and their differences
+		int aggregate = 0, bumpiness = 0;
+		for (int x = 0; x < w; x++)
+		{
+			aggregate += heights[x];
+			if (x > 0)
+				bumpiness += Math.abs(heights[x] - heights[x - 1]);
+		}
+
+		return heightWeight * aggregate + linesWeight * lines + holesWeight * holes + bumpinessWeight * bumpiness;
+	}
+
+	/**
+	 *
+	 * @return how many boards were evaluated
+	 */
+	public long getEvaluations()
+	{
+		return evaluations;
+	}
+
+	/**
+	 * get a y line of the field with the piece placed on it
+	 * @param field the field
+	 * @param mask the mask of the piece
+	 * @param sx the x position of the piece
+	 * @param sy the y position of the piece
+	 * @param y the y line to get
+	 * @return the occupancy mask of the line
+	 */
+	static long getRow(PlayField field, ShapeMask mask, int sx, int sy, int y)
+	{
+		long row = field.getRowMask(y);
+		int py = y - sy;
+		if (py >= 0 && py < mask.getHeight())
+			row |= shift(mask.getRow(py), sx);
+
+		return row;
+	}
+
+	/**
+	 * move a line mask of a shape to the shape's x position.
+	 * shapes may hang over the left edge with their blank blocks, those are shifted out
+	 * @param line the line mask of the shape
+	 * @param sx the x position of the shape
+	 * @return the line mask in field coordinates
+	 */
+	static long shift(long line, int sx)
+	{
+		return sx >= 0 ? line << sx : line >>> -sx;
+	}
+}
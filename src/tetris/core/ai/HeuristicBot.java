@@ -0,0 +1,119 @@
+package tetris.core.ai;
+
+import tetris.core.GameEngine;
+import tetris.core.InputFrame;
+import tetris.core.InputSource;
+import tetris.core.PieceState;
+import tetris.core.model.PlayField;
+import tetris.core.model.Shape;
+import tetris.core.simulation.InputSourceFactory;
+
+/**
+ * a bot that places every piece where the board scores best, looking at the current piece only.
+ * All reachable placements are enumerated and scored by a {@code BoardEvaluator}, then the moves to the best one
+ * are played through the input frame, just like a human player's key presses.
+ */
+public class HeuristicBot extends InputSource
+{
+	/**
+	 * the evaluator scoring the placements
+	 */
+	final BoardEvaluator evaluator = new BoardEvaluator();
+
+	/**
+	 * scratch array the placements are enumerated into. only reallocated if the field gets wider
+	 */
+	long[] placements = new long[0];
+
+	/**
+	 * how many pieces were placed by the bot
+	 */
+	long decisions = 0;
+
+	@Override
+	public void poll(GameEngine game, InputFrame frame)
+	{
+		Shape piece = game.getCurrentPiece();
+		if (piece == null)
+			return;
+
+		// move the piece to the best placement and drop it
+		long start = PieceState.of(piece);
+		long best = findBestPlacement(game.getField(), start);
+		if (best != PieceState.INVALID)
+		{
+			PlacementEnumerator.addMoves(start, best, frame);
+			decisions++;
+		}
+	}
+
+	/**
+	 * find the placement of a piece that results in the best board
+	 * @param field the field the piece is on
+	 * @param start the packed state of the piece
+	 * @return the best placement, or {@code PieceState.INVALID} if the piece cannot be placed anywhere
+	 */
+	public long findBestPlacement(PlayField field, long start)
+	{
+		if (field.getWidth() > Long.SIZE)
+			throw new IllegalArgumentException("the bot only supports fields up to " + Long.SIZE + " blocks wide");
+
+		if (placements.length < PlacementEnumerator.getMaxPlacements(field))
+			placements = new long[PlacementEnumerator.getMaxPlacements(field)];
+
+		int count = PlacementEnumerator.enumerate(field, start, placements);
+		long best = PieceState.INVALID;
+		double bestScore = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < count; i++)
+		{
+			long p = placements[i];
+			double score = evaluator.evaluate(field, PieceState.mask(p), PieceState.x(p), PieceState.y(p));
+			if (score > bestScore)
+			{
+				bestScore = score;
+				best = p;
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 *
+	 * @return the evaluator scoring the placements, to change its weights
+	 */
+	public BoardEvaluator getEvaluator()
+	{
+		return evaluator;
+	}
+
+	/**
+	 *
+	 * @return how many pieces were placed by the bot
+	 */
+	public long getDecisions()
+	{
+		return decisions;
+	}
+
+	/**
+	 * format the bot's statistics as a human readable summary
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("%d pieces placed, %d placements evaluated", decisions, evaluator.getEvaluations());
+	}
+
+	/**
+	 * factory for heuristic bots
+	 */
+	public static class Factory extends InputSourceFactory
+	{
+		@Override
+		public InputSource build(long seed)
+		{
+			return new HeuristicBot();
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package tetris.core.ai;
+
+import tetris.core.InputFrame;
+import tetris.core.PieceState;
+import tetris.core.ShapeRegistry;
+import tetris.core.model.PlayField;
+import tetris.core.model.ShapeDefinition;
+
+/**
+ * helper to find all final placements a piece can reach, using packed piece states so no objects are created.
+ *
+ * A placement is reachable if the piece can get there by first rotating in place, then moving sideways and finally
+ * dropping straight down, without colliding on the way. That is exactly the sequence of actions addMoves() emits,
+ * so every placement found can be played through a normal {@code InputFrame}.
+ */
+public final class PlacementEnumerator
+{
+	/**
+	 * static helper, no instances
+	 */
+	private PlacementEnumerator()
+	{
+	}
+
+	/**
+	 * get how many placements enumerate() can find at most
+	 * @param field the field placements are searched on
+	 * @return the maximum number of placements
+	 */
+	public static int getMaxPlacements(PlayField field)
+	{
+		return ShapeDefinition.ROTATIONS * field.getWidth();
+	}
+
+	/**
+	 * find all placements a piece can reach
+	 * @param field the field the piece is on
+	 * @param start the packed state of the piece
+	 * @param placements array the packed states of the landed pieces are written to. Must be at least
+	 *            {@code getMaxPlacements()} long
+	 * @return how many placements were written
+	 */
+	public static int enumerate(PlayField field, long start, long[] placements)
+	{
+		if (PieceState.collides(field, start))
+			return 0;
+
+		ShapeDefinition definition = ShapeRegistry.getDefinition(PieceState.type(start));
+		int count = 0;
+		long rotated = start;
+		for (int r = 0; r < ShapeDefinition.ROTATIONS && rotated != PieceState.INVALID; r++)
+		{
+			// rotations with the same blocks as a earlier one reach the same placements
+			if (!isDuplicateRotation(definition, start, r))
+				count = addSlides(field, rotated, placements, count);
+
+			rotated = PieceState.tryRotate(field, rotated);
+		}
+
+		return count;
+	}
+
+	/**
+	 * add the actions that move a piece to a placement found by enumerate() and drop it there
+	 * @param start the packed state of the piece, as passed to enumerate()
+	 * @param placement the placement to reach
+	 * @param frame the frame to add the actions to
+	 */
+	public static void addMoves(long start, long placement, InputFrame frame)
+	{
+		// rotate first...
+		int rotations = ((PieceState.rotation(placement) - PieceState.rotation(start)) / 90 + ShapeDefinition.ROTATIONS)
+				% ShapeDefinition.ROTATIONS;
+		for (int i = 0; i < rotations; i++)
+			frame.add(InputFrame.ROTATE);
+
+		// ... then move sideways ...
+		int dx = PieceState.x(placement) - PieceState.x(start);
+		for (int i = 0; i < Math.abs(dx); i++)
+			frame.add(dx < 0 ? InputFrame.LEFT : InputFrame.RIGHT);
+
+		// ... and drop
+		frame.add(InputFrame.DROP);
+	}
+
+	/**
+	 * add the placements of a piece moved sideways as far as possible in both directions
+	 * @param field the field the piece is on
+	 * @param state the packed state of the (rotated) piece
+	 * @param placements array to write the placements to
+	 * @param count how many placements are already in the array
+	 * @return how many placements are in the array now
+	 */
+	static int addSlides(PlayField field, long state, long[] placements, int count)
+	{
+		placements[count++] = PieceState.drop(field, state);
+		for (long s = PieceState.tryMove(field, state, -1, 0); s != PieceState.INVALID; s = PieceState.tryMove(field, s, -1, 0))
+			placements[count++] = PieceState.drop(field, s);
+		for (long s = PieceState.tryMove(field, state, 1, 0); s != PieceState.INVALID; s = PieceState.tryMove(field, s, 1, 0))
+			placements[count++] = PieceState.drop(field, s);
+
+		return count;
+	}
+
+	/**
+	 * check if the r-th rotation of a piece has the same blocks as one of the rotations before it
+	 * @param definition the definition of the piece's type
+	 * @param start the packed state of the piece before rotating
+	 * @param r how many times the piece was rotated
+	 * @return was the same rotation already enumerated?
+	 */
+	static boolean isDuplicateRotation(ShapeDefinition definition, long start, int r)
+	{
+		int rotation = (PieceState.rotation(start) + r * 90) % 360;
+		for (int i = 0; i < r; i++)
+			if (definition.getBlocks((PieceState.rotation(start) + i * 90) % 360) == definition.getBlocks(rotation))
+				return true;
+
+		return false;
+	}
+}
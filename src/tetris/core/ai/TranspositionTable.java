@@ -0,0 +1,311 @@
+package tetris.core.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import tetris.core.Hashing;
+
+/**
+ * a fixed- size cache of board evaluation scores, keyed by a 64 bit hash (usually the hash of the board plus the state
+ * of the piece placed on it, see key()).
+ *
+ * The table is open- addressed: a key can only be stored in the BUCKET_SIZE entries of its bucket. If the bucket is
+ * full, the entry from the oldest search generation is replaced, and among those the one searched least deep. All
+ * entries are stored in primitive arrays allocated by the constructor, so using the table allocates nothing.
+ *
+ * The table may be used by several threads at once without locking. The entry arrays are read and written without any
+ * synchronization, so two threads writing the same entry race, and a reader may see the fields of a entry half from
+ * one write and half from another. This is safe only because of the check value every entry stores (the XOR of key,
+ * score and metadata): a torn entry no longer XORs back to its key, so it is treated as a miss (or as a empty entry
+ * worth replacing) and never returns a score of another key. A lost write just costs a re- evaluation.
+ * The statistic counters are {@code LongAdder}s, so they stay exact under contention. They may allocate a few
+ * counter cells the first time threads collide on them, but nothing after that.
+ */
+public class TranspositionTable
+{
+	/**
+	 * how many entries a key can be stored in
+	 */
+	static final int BUCKET_SIZE = 4;
+
+	/**
+	 * key ^ score ^ meta of every entry. 0 if the entry is empty
+	 */
+	final long[] checks;
+
+	/**
+	 * the raw bits of the score of every entry
+	 */
+	final long[] scores;
+
+	/**
+	 * the metadata of every entry: the depth in the upper, the generation in the lower 32 bits
+	 */
+	final long[] metas;
+
+	/**
+	 * mask of the entry index bits of a key, with the bits of the index within the bucket cleared
+	 */
+	final int bucketMask;
+
+	/**
+	 * the current search generation. entries of older generations are replaced first
+	 */
+	int generation = 0;
+
+	/**
+	 * statistics: lookups, lookups that found the key, stores and stores that replaced a entry of another key
+	 */
+	final LongAdder lookups = new LongAdder(), hits = new LongAdder(), stores = new LongAdder(),
+			replacements = new LongAdder();
+
+	/**
+	 * create a table
+	 * @param minEntries how many entries the table should have at least. rounded up to the next power of two
+	 */
+	public TranspositionTable(int minEntries)
+	{
+		int entries = Math.max(BUCKET_SIZE, Integer.highestOneBit(Math.max(1, minEntries - 1)) << 1);
+		if (entries <= 0)
+			throw new IllegalArgumentException("cannot create a table with " + minEntries + " entries");
+
+		checks = new long[entries];
+		scores = new long[entries];
+		metas = new long[entries];
+		bucketMask = (entries - 1) & ~(BUCKET_SIZE - 1);
+	}
+
+	/**
+	 * combine the hash of a board and the state of a piece placed on it into a key
+	 * @param boardHash the hash of the board, see {@code PlayField.hash()}
+	 * @param pieceState the packed state of the piece, see {@code PieceState}
+	 * @return the key
+	 */
+	public static long key(long boardHash, long pieceState)
+	{
+		return boardHash ^ Hashing.mix64(pieceState ^ Hashing.GOLDEN_GAMMA);
+	}
+
+	/**
+	 * look up the score of a key
+	 * @param key the key to look up
+	 * @return the score stored for the key, or NaN if the key is not in the table
+	 */
+	public double get(long key)
+	{
+		lookups.increment();
+		int bucket = (int) key & bucketMask;
+		for (int i = bucket; i < bucket + BUCKET_SIZE; i++)
+		{
+			long check = checks[i];
+			long score = scores[i];
+			if (check != 0 && (check ^ score ^ metas[i]) == key)
+			{
+				hits.increment();
+				return Double.longBitsToDouble(score);
+			}
+		}
+
+		return Double.NaN;
+	}
+
+	/**
+	 * store the score of a key.
+	 * If the key is stored already, its entry is only updated if the new score was searched at least as deep.
+	 * @param key the key to store
+	 * @param score the score to store
+	 * @param depth how deep the score was searched. 0 for a static evaluation
+	 */
+	public void put(long key, double score, int depth)
+	{
+		stores.increment();
+		int bucket = (int) key & bucketMask;
+		int replace = bucket;
+		for (int i = bucket; i < bucket + BUCKET_SIZE; i++)
+		{
+			// same key: keep the deeper score
+			long check = checks[i];
+			long meta = metas[i];
+			if (check != 0 && (check ^ scores[i] ^ meta) == key)
+			{
+				if (depth < getDepth(meta))
+					return;
+
+				write(i, key, score, depth);
+				return;
+			}
+
+			// use a empty entry, or remember the entry that is least worth keeping
+			if (check == 0)
+			{
+				write(i, key, score, depth);
+				return;
+			}
+
+			if (isWorse(meta, metas[replace]))
+				replace = i;
+		}
+
+		replacements.increment();
+		write(replace, key, score, depth);
+	}
+
+	/**
+	 * start a new search generation. Entries stored before are kept, but are replaced before the ones of the new
+	 * generation. Call this once per move
+	 */
+	public void newGeneration()
+	{
+		generation++;
+	}
+
+	/**
+	 * remove all entries and reset the statistics
+	 */
+	public void clear()
+	{
+		Arrays.fill(checks, 0);
+		Arrays.fill(scores, 0);
+		Arrays.fill(metas, 0);
+		generation = 0;
+		lookups.reset();
+		hits.reset();
+		stores.reset();
+		replacements.reset();
+	}
+
+	/**
+	 *
+	 * @return how many entries the table has
+	 */
+	public int getCapacity()
+	{
+		return checks.length;
+	}
+
+	/**
+	 * count the entries in use. This scans the whole table, so do not call it in a hot loop
+	 * @return how many entries are in use
+	 */
+	public int getOccupied()
+	{
+		int occupied = 0;
+		for (long check : checks)
+			if (check != 0)
+				occupied++;
+
+		return occupied;
+	}
+
+	/**
+	 *
+	 * @return the fraction of entries in use, 0 - 1
+	 */
+	public double getOccupancy()
+	{
+		return (double) getOccupied() / getCapacity();
+	}
+
+	/**
+	 *
+	 * @return how many lookups were done
+	 */
+	public long getLookups()
+	{
+		return lookups.sum();
+	}
+
+	/**
+	 *
+	 * @return how many lookups found their key
+	 */
+	public long getHits()
+	{
+		return hits.sum();
+	}
+
+	/**
+	 *
+	 * @return the fraction of lookups that found their key, 0 - 1
+	 */
+	public double getHitRate()
+	{
+		long lookups = getLookups();
+		return lookups == 0 ? 0 : (double) getHits() / lookups;
+	}
+
+	/**
+	 *
+	 * @return how many stores replaced a entry of another key
+	 */
+	public long getReplacements()
+	{
+		return replacements.sum();
+	}
+
+	/**
+	 * format the table's statistics as a human readable summary
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("%d entries, %.1f%% occupied, %d lookups, %.1f%% hits, %d stores, %d replacements", getCapacity(),
+				getOccupancy() * 100, getLookups(), getHitRate() * 100, stores.sum(), getReplacements());
+	}
+
+	/**
+	 * write a entry
+	 * @param i the index of the entry
+	 * @param key the key
+	 * @param score the score
+	 * @param depth the depth the score was searched at
+	 */
+	void write(int i, long key, double score, int depth)
+	{
+		long scoreBits = Double.doubleToRawLongBits(score);
+		long meta = ((long) depth << 32) | (generation & 0xFFFFFFFFL);
+		long check = key ^ scoreBits ^ meta;
+
+		// a check value of 0 marks a empty entry, such a entry cannot be stored (and is just not cached)
+		if (check == 0)
+			return;
+
+		checks[i] = check;
+		scores[i] = scoreBits;
+		metas[i] = meta;
+	}
+
+	/**
+	 * check if a entry is less worth keeping than another: entries of older generations first, then shallower entries
+	 * @param meta the metadata of the entry
+	 * @param other the metadata of the other entry
+	 * @return should the entry be replaced before the other one?
+	 */
+	boolean isWorse(long meta, long other)
+	{
+		int age = generation - getGeneration(meta);
+		int otherAge = generation - getGeneration(other);
+		if (age != otherAge)
+			return age > otherAge;
+
+		return getDepth(meta) < getDepth(other);
+	}
+
+	/**
+	 * @param meta the metadata of a entry
+	 * @return the depth of the entry
+	 */
+	static int getDepth(long meta)
+	{
+		return (int) (meta >>> 32);
+	}
+
+	/**
+	 * @param meta the metadata of a entry
+	 * @return the generation of the entry
+	 */
+	static int getGeneration(long meta)
+	{
+		return (int) meta;
+	}
+}
@@ -1,5 +1,9 @@
 package tetris.core.model;
 
+import java.util.Arrays;
+
+import tetris.core.Hashing;
+
 public class PlayField
 {
 	/**
@@ -10,13 +14,71 @@ public class PlayField
 	/**
 	 * the internal play field.
 	 * This contains all blocks that are non-moving (static)
-	 * [x][y]
-	 * 
+	 * stored row by row, so the char at (x/y) is at [y * width + x]
+	 *
 	 * x is left (0) to right (n) (like in maths)
 	 * y is top (0) to bottom (n) (inverse to maths)
 	 * => (0/0) is the top-left corner
+	 *
+	 * The chars are only used for the metadata (color) of the blocks,
+	 * collisions are checked using the occupancy bit masks in {@code rows}
+	 */
+	private char[] staticField;
+
+	/**
+	 * the occupancy bit masks of the play field.
+	 * each y line is stored as {@code wordsPerRow} longs, so the word containing (x/y) is at [y * wordsPerRow + (x / 64)].
+	 * bit (x % 64) of that word is set if the block at (x/y) is not blank.
+	 */
+	private long[] rows;
+
+	/**
+	 * how many longs are used to store one y line in {@code rows}
+	 */
+	private int wordsPerRow;
+
+	/**
+	 * how many non- blank blocks each y line contains.
+	 * a line is complete if its count equals the width of the field
+	 */
+	private int[] rowFill;
+
+	/**
+	 * bit set of y lines that got a block added since the last call to removeCompleteLines().
+	 * only these lines can have become complete, so all other lines are skipped when looking for complete lines.
+	 * bit (y % 64) of dirtyRows[y / 64] is set if line y is dirty
+	 */
+	private long[] dirtyRows;
+
+	/**
+	 * the skyline of the play field.
+	 * columnTop[x] is the y value of the top- most non- blank block in column x, or the height of the field if the
+	 * column is empty
+	 */
+	private int[] columnTop;
+
+	/**
+	 * change counter of the field. increased every time any block changes, never decreases
+	 */
+	private long version;
+
+	/**
+	 * the value of {@code version} when each y line last changed.
+	 * lines with the same version as in a earlier frame did not change since then
+	 */
+	private long[] rowVersions;
+
+	/**
+	 * Zobrist style hash of the occupancy of each y line: the XOR of the keys of all non- blank columns.
+	 * The hash does not depend on the y of the line, so moving a line keeps its hash
 	 */
-	private char[][] staticField;
+	private long[] rowHashes;
+
+	/**
+	 * hash of the occupancy of the whole field: the XOR of the hashes of all non- blank lines, each mixed with the key of
+	 * its y position. see hash()
+	 */
+	private long hash;
 
 	/**
 	 * the width and height of the play field
@@ -39,9 +101,17 @@ public class PlayField
 	public PlayField(int w, int h)
 	{
 		// init field
-		staticField = new char[w][h];
 		width = w;
 		height = h;
+		wordsPerRow = (w + Long.SIZE - 1) / Long.SIZE;
+		staticField = new char[w * h];
+		rows = new long[wordsPerRow * h];
+		rowFill = new int[h];
+		dirtyRows = new long[(h + Long.SIZE - 1) / Long.SIZE];
+		columnTop = new int[w];
+		Arrays.fill(columnTop, h);
+		rowVersions = new long[h];
+		rowHashes = new long[h];
 
 		// clear field
 		for (int x = 0; x < w; x++)
@@ -50,7 +120,122 @@ public class PlayField
 	}
 
 	/**
-	 * 
+	 * make this field a copy of another field of the same size, without allocating anything
+	 * @param other the field to copy
+	 */
+	public void copyFrom(PlayField other)
+	{
+		if (other.width != width || other.height != height)
+			throw new IllegalArgumentException("cannot copy a " + other.width + "x" + other.height + " field into a " + width + "x"
+					+ height + " field");
+
+		System.arraycopy(other.staticField, 0, staticField, 0, staticField.length);
+		System.arraycopy(other.rows, 0, rows, 0, rows.length);
+		System.arraycopy(other.rowFill, 0, rowFill, 0, rowFill.length);
+		System.arraycopy(other.dirtyRows, 0, dirtyRows, 0, dirtyRows.length);
+		System.arraycopy(other.columnTop, 0, columnTop, 0, columnTop.length);
+		System.arraycopy(other.rowVersions, 0, rowVersions, 0, rowVersions.length);
+		System.arraycopy(other.rowHashes, 0, rowHashes, 0, rowHashes.length);
+		hash = other.hash;
+		version = other.version;
+	}
+
+	/**
+	 *
+	 * @return the change counter of the field. if it is the same as before, no block changed since then
+	 */
+	public long getVersion()
+	{
+		return version;
+	}
+
+	/**
+	 * get when a y line last changed
+	 * @param y the y line
+	 * @return the change counter of the field when the line last changed. if it is the same as before, the line did
+	 *         not change since then
+	 */
+	public long getRowVersion(int y)
+	{
+		return rowVersions[y];
+	}
+
+	/**
+	 * get a 64 bit hash of which blocks of the field are taken.
+	 * The hash is updated whenever a block changes, so this is free to call. Only the occupancy is hashed, fields that
+	 * differ only in the colors of their blocks have the same hash. A empty field has the hash 0.
+	 * With assertions enabled, the hash is checked against a full recompute on every call
+	 * @return the hash of the field
+	 */
+	public long hash()
+	{
+		assert hash == computeHash() : "incremental hash " + hash + " differs from the recomputed hash " + computeHash();
+		return hash;
+	}
+
+	/**
+	 * calculate the hash of the field from scratch
+	 * @return the hash of the field, see hash()
+	 */
+	long computeHash()
+	{
+		long full = 0;
+		for (int y = 0; y < height; y++)
+		{
+			long rowHash = 0;
+			for (int w = 0; w < wordsPerRow; w++)
+				for (long bits = rows[y * wordsPerRow + w]; bits != 0; bits &= bits - 1)
+					rowHash ^= columnKey(w * Long.SIZE + Long.numberOfTrailingZeros(bits));
+
+			full ^= placeRowHash(rowHash, y);
+		}
+
+		return full;
+	}
+
+	/**
+	 * set the hash of a y line and update the hash of the field
+	 * @param y the y line
+	 * @param rowHash the new hash of the line
+	 */
+	void setRowHash(int y, long rowHash)
+	{
+		hash ^= placeRowHash(rowHashes[y], y) ^ placeRowHash(rowHash, y);
+		rowHashes[y] = rowHash;
+	}
+
+	/**
+	 * mix the hash of a line with the key of its y position, so equal lines at different heights hash differently
+	 * @param rowHash the hash of the line
+	 * @param y the y position of the line
+	 * @return the hash of the line at that position. 0 for a blank line
+	 */
+	static long placeRowHash(long rowHash, int y)
+	{
+		return rowHash == 0 ? 0 : Hashing.mix64(rowHash ^ Hashing.mix64(Hashing.GOLDEN_GAMMA * (y + 1)));
+	}
+
+	/**
+	 * get the Zobrist key of a column
+	 * @param x the column
+	 * @return the key of the column
+	 */
+	static long columnKey(int x)
+	{
+		return Hashing.mix64(0xC2B2AE3D27D4EB4FL * (x + 1));
+	}
+
+	/**
+	 * record that a y line changed
+	 * @param y the y line that changed
+	 */
+	void markRowChanged(int y)
+	{
+		rowVersions[y] = ++version;
+	}
+
+	/**
+	 *
 	 * @return the width of the field
 	 */
 	public int getWidth()
@@ -59,7 +244,7 @@ public class PlayField
 	}
 
 	/**
-	 * 
+	 *
 	 * @return the height of the field
 	 */
 	public int getHeight()
@@ -75,7 +260,7 @@ public class PlayField
 	 */
 	public char get(int x, int y)
 	{
-		return staticField[x][y];
+		return staticField[index(x, y)];
 	}
 
 	/**
@@ -86,7 +271,41 @@ public class PlayField
 	 */
 	public void set(int x, int y, char c)
 	{
-		staticField[x][y] = c;
+		int i = index(x, y);
+		if (staticField[i] == c)
+			return;
+
+		staticField[i] = c;
+		markRowChanged(y);
+
+		// update the occupancy mask and fill count, but only if the block actually changed from blank to non- blank
+		// or the other way around
+		int word = y * wordsPerRow + (x >>> 6);
+		long bit = 1L << x;
+		boolean wasBlank = (rows[word] & bit) == 0;
+		if (c == BLANK && !wasBlank)
+		{
+			rows[word] &= ~bit;
+			rowFill[y]--;
+			setRowHash(y, rowHashes[y] ^ columnKey(x));
+
+			// removed the top- most block of the column, find the next one below
+			if (columnTop[x] == y)
+				columnTop[x] = findColumnTop(x, y + 1);
+		}
+		else if (c != BLANK && wasBlank)
+		{
+			rows[word] |= bit;
+			rowFill[y]++;
+			setRowHash(y, rowHashes[y] ^ columnKey(x));
+
+			// adding a block may have completed the line
+			dirtyRows[y >>> 6] |= 1L << y;
+
+			// ... or raised the skyline
+			if (y < columnTop[x])
+				columnTop[x] = y;
+		}
 	}
 
 	/**
@@ -97,11 +316,25 @@ public class PlayField
 	 */
 	public boolean isBlank(int x, int y)
 	{
-		return get(x, y) == BLANK;
+		if (isOutOfBounds(x, y))
+			throw new ArrayIndexOutOfBoundsException("(" + x + "/" + y + ") is out of bounds");
+
+		return (rows[y * wordsPerRow + (x >>> 6)] & (1L << x)) == 0;
+	}
+
+	/**
+	 * get the occupancy bit mask of a y line, for read- only access by search code.
+	 * Only the first 64 columns fit into the mask, so this is only useful for fields up to 64 blocks wide
+	 * @param y the y line to get
+	 * @return the mask of the line. bit x is set if the block at (x/y) is not blank
+	 */
+	public long getRowMask(int y)
+	{
+		return rows[y * wordsPerRow];
 	}
-	
+
 	/**
-	 * place a shape on the play field. 
+	 * place a shape on the play field.
 	 * This does NOT do any collision checks. do those beforehand with isColliding().
 	 * This, however, does bound checks using isOutOfBounds(). if out of bounds, nothing is placed
 	 * @param shape the shape to place
@@ -112,16 +345,35 @@ public class PlayField
 		if (isOutOfBounds(shape))
 			return;
 
-		// get shape details
-		int sx = shape.getX();
-		int sy = shape.getY();
-		int sw = shape.getWidth();
-		int sh = shape.getHeight();
-		char[][] blocks = shape.getBlocks();
+		placeBlocks(shape.getBlocks(), shape.getX(), shape.getY());
+	}
+
+	/**
+	 * place a shape given by its type's definition on the play field, without creating a shape object.
+	 * Like placeShape(Shape), this does NOT do any collision checks and places nothing if out of bounds
+	 * @param definition the definition of the shape's type
+	 * @param rotation the rotation of the shape, in degree (0 - 270)
+	 * @param sx the x position of the shape
+	 * @param sy the y position of the shape
+	 */
+	public void placeShape(ShapeDefinition definition, int rotation, int sx, int sy)
+	{
+		if (isOutOfBounds(definition.getMask(rotation), sx, sy))
+			return;
+
+		placeBlocks(definition.getBlocks(rotation), sx, sy);
+	}
 
-		// add non- blank blocks to field
-		for (int x = 0; x < sw; x++)
-			for (int y = 0; y < sh; y++)
+	/**
+	 * add the non- blank blocks of a shape to the field
+	 * @param blocks the blocks of the shape, [x][y]
+	 * @param sx the x position of the shape
+	 * @param sy the y position of the shape
+	 */
+	void placeBlocks(char[][] blocks, int sx, int sy)
+	{
+		for (int x = 0; x < blocks.length; x++)
+			for (int y = 0; y < blocks[x].length; y++)
 				if (blocks[x][y] != BLANK)
 					set(x + sx, y + sy, blocks[x][y]);
 	}
@@ -133,23 +385,25 @@ public class PlayField
 	 */
 	public boolean isOutOfBounds(Shape shape)
 	{
-		// get shape details
-		int sx = shape.getX();
-		int sy = shape.getY();
-		int sw = shape.getWidth();
-		int sh = shape.getHeight();
-		char[][] blocks = shape.getBlocks();
-
-		// check if any (non- blank) block is out of bounds
-		// abort on the first out- of- bounds block
-		for (int x = 0; x < sw; x++)
-			for (int y = 0; y < sh; y++)
-				if (blocks[x][y] != BLANK
-						&& isOutOfBounds(x + sx, y + sy))
-					return true; // block is out of bounds!
-
-		// no block was out of bounds
-		return false;
+		return isOutOfBounds(shape.getMask(), shape.getX(), shape.getY());
+	}
+
+	/**
+	 * check if any block of a shape mask is out of bounds of the play field
+	 * @param mask the mask of the shape to check
+	 * @param sx the x position of the shape
+	 * @param sy the y position of the shape
+	 * @return is the shape out of bounds?
+	 */
+	public boolean isOutOfBounds(ShapeMask mask, int sx, int sy)
+	{
+		// a empty shape can never be out of bounds
+		if (mask.isEmpty())
+			return false;
+
+		// only the bounding box of the non- blank blocks matters
+		return sx + mask.minX < 0 || sx + mask.maxX >= width
+				|| sy + mask.minY < 0 || sy + mask.maxY >= height;
 	}
 
 	/**
@@ -158,68 +412,159 @@ public class PlayField
 	 * @return does the shape collide?
 	 */
 	public boolean checkCollision(Shape shape)
+	{
+		return checkCollision(shape.getMask(), shape.getX(), shape.getY());
+	}
+
+	/**
+	 * check if a shape mask is out of bounds of the play field or collides with any static blocks
+	 * @param mask the mask of the shape to check
+	 * @param sx the x position of the shape
+	 * @param sy the y position of the shape
+	 * @return does the shape collide?
+	 */
+	public boolean checkCollision(ShapeMask mask, int sx, int sy)
 	{
 		// check out of bounds (counts as collision)
-		if (isOutOfBounds(shape))
+		if (isOutOfBounds(mask, sx, sy))
 			return true;
 
-		// get shape details
-		int sx = shape.getX();
-		int sy = shape.getY();
-		int sw = shape.getWidth();
-		int sh = shape.getHeight();
-		char[][] blocks = shape.getBlocks();
-
-		// check if any non- blank shape block overlaps with any non- blank static block
-		for (int x = 0; x < sw; x++)
-			for (int y = 0; y < sh; y++)
-				if (blocks[x][y] != BLANK && !isBlank(x + sx, y + sy))
-					return true;
+		// AND every (shifted) y line of the shape with the y line of the field it overlaps
+		for (int y = mask.minY; y <= mask.maxY; y++)
+			if (collidesRow(mask.rows[y], sx, sy + y))
+				return true;
 
 		// no collision found
 		return false;
 	}
-	
+
+	/**
+	 * get the height of a column, measured from the bottom of the field to the top- most block in the column
+	 * @param x the column to get the height of
+	 * @return the height of the column. 0 if the column is empty
+	 */
+	public int getColumnHeight(int x)
+	{
+		return height - columnTop[x];
+	}
+
+	/**
+	 * get the y position a shape would land at when dropped straight down from its current position
+	 * @param shape the shape to drop
+	 * @return the y position the shape lands at
+	 */
+	public int getLandingY(Shape shape)
+	{
+		return getLandingY(shape.getMask(), shape.getX(), shape.getY());
+	}
+
 	/**
-	 * remove all complete lines and mvoe all blocks above down by one
+	 * get the y position a shape mask would land at when dropped straight down from the given position.
+	 * If the shape already collides at that position, sy is returned.
+	 * 
+	 * As long as the shape is above the skyline in all of its columns, the landing position is calculated directly
+	 * from the skyline and the shape's bottom profile. Only if the shape was moved below an overhang the drop is
+	 * simulated line by line.
+	 * @param mask the mask of the shape to drop
+	 * @param sx the x position of the shape
+	 * @param sy the y position the shape is dropped from
+	 * @return the y position the shape lands at
+	 */
+	public int getLandingY(ShapeMask mask, int sx, int sy)
+	{
+		// a colliding shape cannot move anywhere
+		if (checkCollision(mask, sx, sy))
+			return sy;
+
+		// a empty shape falls through everything
+		if (mask.isEmpty())
+			return sy;
+
+		// the shape cannot fall through the floor...
+		int landing = height - 1 - mask.maxY;
+
+		// ... nor through the skyline
+		for (int x = mask.minX; x <= mask.maxX; x++)
+		{
+			int b = mask.bottom[x];
+			if (b < 0)
+				continue;
+
+			// the shape is below the skyline in this column, so it's under a overhang.
+			// the skyline does not help here, fall back to dropping line by line
+			int top = columnTop[sx + x];
+			if (sy + b >= top)
+			{
+				int y = sy;
+				while (!checkCollision(mask, sx, y + 1))
+					y++;
+				return y;
+			}
+
+			landing = Math.min(landing, top - 1 - b);
+		}
+
+		return landing;
+	}
+
+	/**
+	 * remove all complete lines and mvoe all blocks above down
 	 * @return the number of full lines removed
 	 */
 	public int removeCompleteLines()
 	{
-		// check all lines in reverse order
+		return removeCompleteLines(null);
+	}
+
+	/**
+	 * remove all complete lines and mvoe all blocks above down.
+	 * All lines are compacted in a single bottom- up pass, so clearing multiple lines at once is not more expensive than
+	 * clearing one.
+	 * Only lines that got blocks added since the last call are checked, so calling this when nothing was placed is
+	 * basically free.
+	 * @param clearedLines array the y values of the removed lines are written to, bottom- most line first. The y values
+	 *            are the positions of the lines BEFORE they were removed. may be null if not needed. Should be at least
+	 *            {@code getHeight()} long, lines that do not fit are not written.
+	 * @return the number of full lines removed
+	 */
+	public int removeCompleteLines(int[] clearedLines)
+	{
+		// find the bottom- most complete line. only dirty lines can be complete,
+		// all others were already checked by a previous call
+		int bottom = findBottomCompleteDirtyRow();
+		Arrays.fill(dirtyRows, 0);
+		if (bottom < 0)
+			return 0;
+
+		// walk all lines from there bottom- up, copying every incomplete line down to the next free line
+		// (dst) and skipping complete ones. lines below the bottom- most complete line stay where they are
 		int lns = 0;
-		for (int y = getHeight() - 1; y >= 0; y--)
+		int dst = bottom;
+		for (int src = bottom; src >= 0; src--)
 		{
-			// check this line is complete
-			// if there is ANY blank in this line, it cannot be complete
-			boolean isLineComplete = true;
-			for (int x = 0; x < getWidth(); x++)
-				if (isBlank(x, y))
-					isLineComplete = false;
-
-			// skip if this line is NOT complete
-			if (!isLineComplete)
+			// skip complete lines, they are not copied and thus removed
+			if (isRowFull(src))
+			{
+				if (clearedLines != null && lns < clearedLines.length)
+					clearedLines[lns] = src;
+				lns++;
 				continue;
+			}
 
-			// the line is complete, move all above lines down by one
-			// also count this line into the completed lines removed
-			lns++;
-
-			// move lines above this one down by one
-			for (int movY = y; movY >= 0; movY--)
-				for (int x = 0; x < getWidth(); x++)
-					if (movY > 0)
-						set(x, movY, get(x, movY - 1)); // not at the topmost line, copy line above down
-					else
-						set(x, movY, BLANK); // we copy into the topmost line: fill it blank because there are no lines above
-												// the topmost line
-
-			// done with this line, but recheck again
-			// this is required because we may have moved down a line that is also complete,
-			// which would go unchecked if we don't recheck
-			y++;
+			// move the line down (if any line below it was removed)
+			if (dst != src)
+				copyRow(src, dst);
+			dst--;
 		}
 
+		// all lines above the last copied line are now blank
+		for (int y = dst; y >= 0; y--)
+			clearRow(y);
+
+		// update the skyline. blocks only moved down, so every column's new top is at or below its old one
+		for (int x = 0; x < width; x++)
+			columnTop[x] = findColumnTop(x, columnTop[x]);
+
 		return lns;
 	}
 
@@ -234,4 +579,135 @@ public class PlayField
 		return x < 0 || x >= width
 				|| y < 0 || y >= height;
 	}
+
+	/**
+	 * check if a y line of a shape, placed at x position sx, overlaps any static block in a y line of the field.
+	 * The line mask must already be bounds- checked!
+	 * @param line the y line mask of the shape. bit n is the block at x = sx + n
+	 * @param sx the x position of the shape
+	 * @param y the y line of the field to check against
+	 * @return does the line collide?
+	 */
+	boolean collidesRow(long line, int sx, int y)
+	{
+		if (line == 0)
+			return false;
+
+		// shapes may hang over the left edge with their blank blocks, shift those out
+		if (sx < 0)
+		{
+			line >>>= -sx;
+			sx = 0;
+		}
+
+		// the shifted line may span two words
+		int word = y * wordsPerRow + (sx >>> 6);
+		int shift = sx & 63;
+		if ((rows[word] & (line << shift)) != 0)
+			return true;
+
+		return shift != 0
+				&& (sx >>> 6) + 1 < wordsPerRow
+				&& (rows[word + 1] & (line >>> (Long.SIZE - shift))) != 0;
+	}
+
+	/**
+	 * check if a y line is completely filled
+	 * @param y the y line to check
+	 * @return is the line complete?
+	 */
+	boolean isRowFull(int y)
+	{
+		return rowFill[y] == width;
+	}
+
+	/**
+	 * find the bottom- most dirty y line that is complete
+	 * @return the y value of the line, or -1 if no dirty line is complete
+	 */
+	int findBottomCompleteDirtyRow()
+	{
+		for (int i = dirtyRows.length - 1; i >= 0; i--)
+		{
+			// check the dirty lines of this word, bottom- most (= highest bit) first
+			long dirty = dirtyRows[i];
+			while (dirty != 0)
+			{
+				int bit = Long.SIZE - 1 - Long.numberOfLeadingZeros(dirty);
+				int y = i * Long.SIZE + bit;
+				if (isRowFull(y))
+					return y;
+
+				dirty &= ~(1L << bit);
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * find the top- most non- blank block in a column, starting the search at a given y line
+	 * @param x the column to search
+	 * @param fromY the first y line to check
+	 * @return the y value of the block, or the height of the field if there is none
+	 */
+	int findColumnTop(int x, int fromY)
+	{
+		int word = x >>> 6;
+		long bit = 1L << x;
+		for (int y = fromY; y < height; y++)
+			if ((rows[y * wordsPerRow + word] & bit) != 0)
+				return y;
+
+		return height;
+	}
+
+	/**
+	 * copy a y line over another y line
+	 * @param from the y line to copy
+	 * @param to the y line to overwrite
+	 */
+	void copyRow(int from, int to)
+	{
+		markRowChanged(to);
+		System.arraycopy(staticField, from * width, staticField, to * width, width);
+		System.arraycopy(rows, from * wordsPerRow, rows, to * wordsPerRow, wordsPerRow);
+		rowFill[to] = rowFill[from];
+
+		// the line hash does not depend on the y position, so it can be moved as is
+		setRowHash(to, rowHashes[from]);
+	}
+
+	/**
+	 * fill a y line with blanks
+	 * @param y the y line to clear
+	 */
+	void clearRow(int y)
+	{
+		// a line without blocks is blank already
+		if (rowFill[y] == 0)
+			return;
+
+		markRowChanged(y);
+		for (int x = 0; x < width; x++)
+			staticField[index(x, y)] = BLANK;
+		for (int w = 0; w < wordsPerRow; w++)
+			rows[y * wordsPerRow + w] = 0;
+		rowFill[y] = 0;
+		setRowHash(y, 0);
+	}
+
+	/**
+	 * get the index of a point in {@code staticField}
+	 * @param x the x coord of the point
+	 * @param y the y coord of the point
+	 * @return the index of the point
+	 */
+	int index(int x, int y)
+	{
+		if (isOutOfBounds(x, y))
+			throw new ArrayIndexOutOfBoundsException("(" + x + "/" + y + ") is out of bounds");
+
+		return y * width + x;
+	}
 }
@@ -2,6 +2,10 @@ package tetris.core.model;
 
 public abstract class Renderer
 {
+	/**
+	 * the version of the frame drawn last using draw(Shape, double, long), or -1 if none
+	 */
+	long drawnVersion = -1;
 
 	/**
 	 * initialize a renderer for the given play field
@@ -18,6 +22,33 @@ public abstract class Renderer
 	 */
 	public abstract void draw(Shape movingShape, double currentScore);
 
+	/**
+	 * draw the game, but only if it changed since the last frame drawn using this method
+	 * @param movingShape the current dynamic (moving) shape to draw on top of the game field
+	 * @param currentScore the player's current score
+	 * @param frameVersion the version of the frame (see GameEngine.getFrameVersion()). Frames with the same version
+	 *        look the same
+	 * @return was the frame drawn?
+	 */
+	public boolean draw(Shape movingShape, double currentScore, long frameVersion)
+	{
+		if (frameVersion == drawnVersion)
+			return false;
+
+		drawnVersion = frameVersion;
+		draw(movingShape, currentScore);
+		return true;
+	}
+
+	/**
+	 * forget the frame drawn last, so the next frame is drawn even if its version did not change.
+	 * call this when something else was drawn over the frame
+	 */
+	protected void invalidateFrame()
+	{
+		drawnVersion = -1;
+	}
+
 	/**
 	 * draw the game over screen
 	 * @param score the final score the player reached
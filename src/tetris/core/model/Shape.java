@@ -17,19 +17,60 @@ public abstract class Shape
 	 */
 	int rotation = 0;
 
+	/**
+	 * the cached landing y of the shape, and the x, y, rotation and field version it was computed for.
+	 * see getLandingY()
+	 */
+	int landingY, landingX, landingFromY, landingRotation;
+	long landingFieldVersion = -1;
+
+	/**
+	 * the (shared) definition of this shape's type, containing blocks and masks of all rotations
+	 */
+	final ShapeDefinition definition;
+
 	/**
 	 * create a new shape with the given starting position
 	 * @param field the play field we are on
+	 * @param definition the definition of the shape's type
 	 * @param sx the start x coord
 	 * @param sy the start y coord
 	 */
-	public Shape(PlayField playField, int sx, int sy)
+	public Shape(PlayField playField, ShapeDefinition definition, int sx, int sy)
 	{
 		field = playField;
+		this.definition = definition;
 		x = sx;
 		y = sy;
 	}
 
+	/**
+	 * 
+	 * @return the definition of this shape's type
+	 */
+	public ShapeDefinition getDefinition()
+	{
+		return definition;
+	}
+
+	/**
+	 * 
+	 * @return the index of this shape's type, see {@code ShapeRegistry}
+	 */
+	public int getType()
+	{
+		return definition.getIndex();
+	}
+
+	/**
+	 * 
+	 * @return rotation of this shape, in degree (0 - 270)
+	 */
+	public int getRotation()
+	{
+		return rotation;
+	}
+
 	/**
 	 * 
 	 * @return the x position of the shape
@@ -79,6 +120,17 @@ public abstract class Shape
 		return getBlocksForRotation(rotation);
 	}
 
+	/**
+	 * get the bit mask of the blocks this shape is made of (in the current rotation).
+	 * the mask is used by the play field for collision checks
+	 * 
+	 * @return the bit mask of this shape
+	 */
+	public ShapeMask getMask()
+	{
+		return definition.getMask(rotation);
+	}
+
 	/**
 	 * rotate the shape by 90 deg clockwise
 	 * if the shape colides when rotated, the rotation is undone and false is returned
@@ -86,20 +138,14 @@ public abstract class Shape
 	 */
 	public boolean rotate()
 	{
-		// rotate by 90 degrees
-		rotation += 90;
-		if (rotation >= 360)
-			rotation = 0;
-
-		// check for collision
-		if (!field.checkCollision(this))
-			return true;
+		// check for collision in the rotated state first, so nothing has to be undone
+		int rotated = (rotation + 90) % 360;
+		if (field.checkCollision(definition.getMask(rotated), getX(), getY()))
+			return false;
 
-		// we collided, undo rotation
-		rotation -= 90;
-		if (rotation < 0)
-			rotation = 270;
-		return false;
+		// no collision, rotate by 90 degrees
+		rotation = rotated;
+		return true;
 	}
 
 	/**
@@ -109,14 +155,71 @@ public abstract class Shape
 	 */
 	public boolean moveDown(double howMuch)
 	{
-		// move down and check for collision
+		// check for collision at the new position first
+		if (field.checkCollision(getMask(), getX(), (int) (y + howMuch)))
+			return false;
+
+		// no collision, move down
 		y += howMuch;
-		if (!field.checkCollision(this))
-			return true;
+		return true;
+	}
+
+	/**
+	 * get how many calls of moveDown() it takes until the shape enters the next row.
+	 * Calls before that only move the shape within its current row, so they cannot collide and do not change what is
+	 * drawn
+	 * @param howMuch by how much every call moves down
+	 * @return the number of calls, at least 1
+	 */
+	public int getMovesUntilNextRow(double howMuch)
+	{
+		// add up like moveDown() does, so rounding is the same
+		int row = (int) y;
+		double next = y;
+		int moves = 0;
+		do
+		{
+			next += howMuch;
+			moves++;
+		} while ((int) next == row && howMuch > 0);
+
+		return moves;
+	}
 
-		// we collided, undo movement
-		y -= howMuch;
-		return false;
+	/**
+	 * get the y the shape would land at if dropped straight down.
+	 * The result is cached and only computed again when the field changed, or the shape is at another x or rotation or
+	 * outside of the column between the y it was computed at and the landing y. Within that column falling down does
+	 * not change where the shape lands, but a shape that moved away, fell past a overhang and came back would land
+	 * somewhere else
+	 * @return the landing y
+	 */
+	public int getLandingY()
+	{
+		int sy = getY();
+		if (landingFieldVersion != field.getVersion() || landingX != getX() || landingRotation != rotation
+				|| sy < landingFromY || sy > landingY)
+		{
+			landingY = field.getLandingY(this);
+			landingX = getX();
+			landingFromY = sy;
+			landingRotation = rotation;
+			landingFieldVersion = field.getVersion();
+		}
+
+		return landingY;
+	}
+
+	/**
+	 * move the shape straight down until it would collide with something (hard drop)
+	 * @return by how many lines the shape moved down
+	 */
+	public int drop()
+	{
+		int landing = getLandingY();
+		int moved = landing - getY();
+		y = landing;
+		return moved;
 	}
 
 	/**
@@ -128,14 +231,37 @@ public abstract class Shape
 	 */
 	public boolean moveHorizontal(double amount)
 	{
-		// move and check for collision
+		// check for collision at the new position first
+		if (field.checkCollision(getMask(), (int) (x + amount), getY()))
+			return false;
+
+		// no collision, move
 		x += amount;
-		if (!field.checkCollision(this))
-			return true;
+		return true;
+	}
+
+	/**
+	 * set the position of the shape, without any collision checks
+	 * @param newX the new x position
+	 * @param newY the new y position
+	 */
+	public void setPosition(double newX, double newY)
+	{
+		// the shape may have jumped past a overhang in either direction, so the cached landing y may be wrong.
+		// only falling through moveDown() keeps it valid
+		landingFieldVersion = -1;
 
-		// we collided! undo movement
-		x -= amount;
-		return false;
+		x = newX;
+		y = newY;
+	}
+
+	/**
+	 * set the rotation of the shape, without any collision checks
+	 * @param newRotation the new rotation, in degree (0 - 270)
+	 */
+	public void setRotation(int newRotation)
+	{
+		rotation = newRotation;
 	}
 
 	/**
@@ -143,7 +269,10 @@ public abstract class Shape
 	 * @param rotation the rotation of the shape, in degree (0 - 270)
 	 * @return the blocks for a given rotation
 	 */
-	protected abstract char[][] getBlocksForRotation(int rotation);
+	protected char[][] getBlocksForRotation(int rotation)
+	{
+		return definition.getBlocks(rotation);
+	}
 
 	/**
 	 * helper to construct a char[][] blocks array from strings
@@ -155,7 +284,7 @@ public abstract class Shape
 	 * @param lines the y lines of the shape
 	 * @return the shape's char[][] blocks
 	 */
-	protected char[][] blocksHelper(String... lines)
+	protected static char[][] blocksHelper(String... lines)
 	{
 		return blocksHelper('#', lines);
 	}
@@ -174,7 +303,7 @@ public abstract class Shape
 	 * @param lines the y lines of the shape
 	 * @return the shape's char[][] blocks
 	 */
-	protected char[][] blocksHelper(char c, String... lines)
+	protected static char[][] blocksHelper(char c, String... lines)
 	{
 		// prepare blocks array
 		int w = lines[0].length();
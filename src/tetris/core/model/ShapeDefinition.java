@@ -0,0 +1,96 @@
+package tetris.core.model;
+
+/**
+ * the immutable definition of a shape type (blocks and bit masks of all rotations).
+ * Definitions are built once and shared by all shapes of the same type, so spawning a shape does not have to
+ * rebuild any of this.
+ */
+public final class ShapeDefinition
+{
+	/**
+	 * the number of rotations every shape has (0, 90, 180 and 270 deg)
+	 */
+	public static final int ROTATIONS = 4;
+
+	/**
+	 * the index of this shape type, see {@code ShapeRegistry}
+	 */
+	final int index;
+
+	/**
+	 * the meta char of this shape type (used by renderers for coloring)
+	 */
+	final char meta;
+
+	/**
+	 * the blocks of each rotation, [rotation / 90][x][y]
+	 */
+	final char[][][] blocks;
+
+	/**
+	 * the bit masks of each rotation, [rotation / 90]
+	 */
+	final ShapeMask[] masks;
+
+	/**
+	 * create a shape definition
+	 * @param index the index of this shape type
+	 * @param meta the meta char of the shape
+	 * @param rotations the blocks of each rotation (0, 90, 180, 270 deg). If only one rotation is given, it is used for all
+	 *            rotations
+	 */
+	public ShapeDefinition(int index, char meta, char[][]... rotations)
+	{
+		if (rotations.length != 1 && rotations.length != ROTATIONS)
+			throw new IllegalArgumentException("a shape needs either 1 or " + ROTATIONS + " rotations");
+
+		this.index = index;
+		this.meta = meta;
+		blocks = new char[ROTATIONS][][];
+		masks = new ShapeMask[ROTATIONS];
+		for (int r = 0; r < ROTATIONS; r++)
+		{
+			blocks[r] = rotations[r % rotations.length];
+			masks[r] = new ShapeMask(blocks[r]);
+		}
+	}
+
+	/**
+	 *
+	 * @return the index of this shape type
+	 */
+	public int getIndex()
+	{
+		return index;
+	}
+
+	/**
+	 *
+	 * @return the meta char of this shape type
+	 */
+	public char getMeta()
+	{
+		return meta;
+	}
+
+	/**
+	 * get the blocks of a rotation.
+	 * The returned array is shared, do NOT modify it!
+	 * @param rotation the rotation, in degree (0 - 270)
+	 * @return the blocks of that rotation, [x][y]
+	 */
+	public char[][] getBlocks(int rotation)
+	{
+		return blocks[rotation / 90];
+	}
+
+	/**
+	 * get the bit mask of a rotation
+	 * @param rotation the rotation, in degree (0 - 270)
+	 * @return the mask of that rotation
+	 */
+	public ShapeMask getMask(int rotation)
+	{
+		return masks[rotation / 90];
+	}
+}
@@ -0,0 +1,203 @@
+package tetris.core.model;
+
+/**
+ * bit mask representation of a shape's blocks (for one rotation).
+ * Used by the play field for collision, placement and bounds checks.
+ *
+ * Each y line of the shape is stored as a bit mask, where bit n is set if the block at x = n is not blank.
+ * This limits shapes to a width of 64 blocks, which should be plenty for tetris :P
+ */
+public final class ShapeMask
+{
+	/**
+	 * the row masks of the shape, one per y line.
+	 * bit x of rows[y] is set if the block at (x/y) is not blank
+	 */
+	final long[] rows;
+
+	/**
+	 * the width of the shape (including blank blocks)
+	 */
+	final int width;
+
+	/**
+	 * the bounding box of all non- blank blocks, relative to the shape's (0/0)
+	 * if the shape has no blocks at all, minX/minY are 0 and maxX/maxY are -1
+	 */
+	final int minX, maxX, minY, maxY;
+
+	/**
+	 * the bottom profile of the shape.
+	 * bottom[x] is the y value of the bottom- most non- blank block in column x, or -1 if the column is blank.
+	 * used to calculate where the shape lands when dropped
+	 */
+	final int[] bottom;
+
+	/**
+	 * the left and right profiles of the shape.
+	 * left[y] / right[y] are the x values of the left- / right- most non- blank block in y line y, or -1 if the line is
+	 * blank
+	 */
+	final int[] left, right;
+
+	/**
+	 * create the bit mask of a shape
+	 * @param blocks the blocks of the shape, [x][y]. use {@code PlayField.BLANK} for blank blocks.
+	 */
+	public ShapeMask(char[][] blocks)
+	{
+		int w = blocks.length;
+		int h = blocks[0].length;
+		if (w > Long.SIZE)
+			throw new IllegalArgumentException("shapes may not be wider than " + Long.SIZE + " blocks");
+
+		// build the row masks and find the bounding box
+		width = w;
+		rows = new long[h];
+		int bMinX = w, bMaxX = -1, bMinY = h, bMaxY = -1;
+		for (int y = 0; y < h; y++)
+			for (int x = 0; x < w; x++)
+				if (blocks[x][y] != PlayField.BLANK)
+				{
+					rows[y] |= 1L << x;
+					bMinX = Math.min(bMinX, x);
+					bMaxX = Math.max(bMaxX, x);
+					bMinY = Math.min(bMinY, y);
+					bMaxY = Math.max(bMaxY, y);
+				}
+
+		// an empty shape has an empty bounding box
+		if (bMaxX < 0)
+		{
+			bMinX = 0;
+			bMinY = 0;
+		}
+
+		minX = bMinX;
+		maxX = bMaxX;
+		minY = bMinY;
+		maxY = bMaxY;
+
+		// build the bottom profile
+		bottom = new int[w];
+		for (int x = 0; x < w; x++)
+		{
+			bottom[x] = -1;
+			for (int y = h - 1; y >= 0 && bottom[x] < 0; y--)
+				if ((rows[y] & (1L << x)) != 0)
+					bottom[x] = y;
+		}
+
+		// build the left and right profiles
+		left = new int[h];
+		right = new int[h];
+		for (int y = 0; y < h; y++)
+		{
+			left[y] = rows[y] == 0 ? -1 : Long.numberOfTrailingZeros(rows[y]);
+			right[y] = rows[y] == 0 ? -1 : Long.SIZE - 1 - Long.numberOfLeadingZeros(rows[y]);
+		}
+	}
+
+	/**
+	 *
+	 * @return the width of the mask (including blank blocks)
+	 */
+	public int getWidth()
+	{
+		return width;
+	}
+
+	/**
+	 *
+	 * @return the height of the mask (number of y lines)
+	 */
+	public int getHeight()
+	{
+		return rows.length;
+	}
+
+	/**
+	 * get the bit mask of a y line of the shape
+	 * @param y the y line to get
+	 * @return the mask of that line. bit x is set if the block at (x/y) is not blank
+	 */
+	public long getRow(int y)
+	{
+		return rows[y];
+	}
+
+	/**
+	 *
+	 * @return the leftmost x coordinate of any non- blank block
+	 */
+	public int getMinX()
+	{
+		return minX;
+	}
+
+	/**
+	 *
+	 * @return the rightmost x coordinate of any non- blank block
+	 */
+	public int getMaxX()
+	{
+		return maxX;
+	}
+
+	/**
+	 *
+	 * @return the topmost y coordinate of any non- blank block
+	 */
+	public int getMinY()
+	{
+		return minY;
+	}
+
+	/**
+	 *
+	 * @return the bottommost y coordinate of any non- blank block
+	 */
+	public int getMaxY()
+	{
+		return maxY;
+	}
+
+	/**
+	 * get the bottom profile of a column of the shape
+	 * @param x the column to get the profile of
+	 * @return the y value of the bottom- most non- blank block in the column, or -1 if the column is blank
+	 */
+	public int getBottom(int x)
+	{
+		return bottom[x];
+	}
+
+	/**
+	 * get the left profile of a y line of the shape
+	 * @param y the y line to get the profile of
+	 * @return the x value of the left- most non- blank block in the line, or -1 if the line is blank
+	 */
+	public int getLeft(int y)
+	{
+		return left[y];
+	}
+
+	/**
+	 * get the right profile of a y line of the shape
+	 * @param y the y line to get the profile of
+	 * @return the x value of the right- most non- blank block in the line, or -1 if the line is blank
+	 */
+	public int getRight(int y)
+	{
+		return right[y];
+	}
+
+	/**
+	 *
+	 * @return does this shape have no blocks at all?
+	 */
+	public boolean isEmpty()
+	{
+		return maxX < 0;
+	}
+}
@@ -0,0 +1,221 @@
+package tetris.core.renderers.async;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import tetris.core.PieceState;
+import tetris.core.ShapeRegistry;
+import tetris.core.model.PlayField;
+import tetris.core.model.Renderer;
+import tetris.core.model.Shape;
+
+/**
+ * renderer that draws on a dedicated render thread, so slow output never stalls the game thread.
+ * draw() only copies the field, piece and score into a snapshot and publishes it, the render thread then draws the
+ * latest published snapshot with the wrapped renderer.
+ *
+ * Snapshots are triple- buffered: the game thread fills its back buffer and swaps it with the middle one, the render
+ * thread swaps its front buffer with the middle one and draws it if it is newer than the last frame drawn.
+ * If the render thread falls behind, frames published in the meantime are overwritten and never drawn, instead of
+ * piling up in a queue.
+ */
+public class AsyncRenderer extends Renderer
+{
+	/**
+	 * the field the game is played on
+	 */
+	final PlayField gameField;
+
+	/**
+	 * the field the wrapped renderer draws. snapshots are copied into this on the render thread
+	 */
+	final PlayField renderField;
+
+	/**
+	 * the renderer actually drawing, bound to renderField. only used on the render thread (until drawGameOver())
+	 */
+	final Renderer delegate;
+
+	/**
+	 * the snapshot the game thread fills next
+	 */
+	FrameSnapshot back;
+
+	/**
+	 * the latest snapshot published, or the one the render thread handed back
+	 */
+	final AtomicReference<FrameSnapshot> middle;
+
+	/**
+	 * the snapshot the render thread drew last
+	 */
+	FrameSnapshot front;
+
+	/**
+	 * shapes of every type on renderField, reused to draw the moving piece of a snapshot
+	 */
+	final Shape[] renderShapes;
+
+	/**
+	 * the number of the last frame published (game thread)
+	 */
+	long framesPublished = 0;
+
+	/**
+	 * how many frames were drawn, and how many were dropped because a newer frame was published before they were drawn
+	 */
+	volatile long framesDrawn = 0, framesDropped = 0;
+
+	/**
+	 * is the render thread still running?
+	 */
+	volatile boolean running = true;
+
+	/**
+	 * the error that stopped the render thread, if any
+	 */
+	volatile Throwable failure;
+
+	/**
+	 * the thread drawing the frames
+	 */
+	final Thread renderThread;
+
+	/**
+	 * initialize a async renderer
+	 * @param playField the field the game is played on
+	 * @param renderPlayField the field the wrapped renderer was built for. Same size as playField
+	 * @param renderer the renderer drawing renderPlayField
+	 */
+	public AsyncRenderer(PlayField playField, PlayField renderPlayField, Renderer renderer)
+	{
+		super(playField);
+		gameField = playField;
+		renderField = renderPlayField;
+		delegate = renderer;
+
+		// create the snapshots
+		back = new FrameSnapshot(playField.getWidth(), playField.getHeight());
+		middle = new AtomicReference<FrameSnapshot>(new FrameSnapshot(playField.getWidth(), playField.getHeight()));
+		front = new FrameSnapshot(playField.getWidth(), playField.getHeight());
+
+		renderShapes = new Shape[ShapeRegistry.getShapeCount()];
+		for (int type = 0; type < renderShapes.length; type++)
+			renderShapes[type] = ShapeRegistry.createShape(type, renderField, 0, 0);
+
+		// start the render thread. it must not keep the game running once the game thread is done
+		renderThread = new Thread(this::renderLoop, "renderer");
+		renderThread.setDaemon(true);
+		renderThread.start();
+	}
+
+	/**
+	 * publish a frame to be drawn by the render thread
+	 * @param movingShape the current dynamic (moving) shape to draw on top of the game field
+	 * @param currentScore the player's current score
+	 */
+	@Override
+	public void draw(Shape movingShape, double currentScore)
+	{
+		if (failure != null)
+			throw new IllegalStateException("render thread failed", failure);
+
+		back.fill(gameField, movingShape, currentScore, ++framesPublished);
+		back = middle.getAndSet(back);
+		LockSupport.unpark(renderThread);
+	}
+
+	/**
+	 * stop the render thread, then draw the game over screen
+	 * @param score the final score the player reached
+	 */
+	@Override
+	public void drawGameOver(double score)
+	{
+		stop();
+		delegate.drawGameOver(score);
+	}
+
+	/**
+	 * stop the render thread after it finished the frame it is drawing.
+	 * frames published but not drawn yet are dropped
+	 */
+	public void stop()
+	{
+		running = false;
+		LockSupport.unpark(renderThread);
+		try
+		{
+			renderThread.join();
+		} catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * draw the latest published frame until stopped
+	 */
+	void renderLoop()
+	{
+		long lastDrawn = 0;
+		try
+		{
+			while (running)
+			{
+				// take the middle snapshot. if it is not newer than what we drew, nothing was published: wait
+				front = middle.getAndSet(front);
+				if (front.frame <= lastDrawn)
+				{
+					LockSupport.park(this);
+					continue;
+				}
+
+				// frames published between the last frame drawn and this one were never drawn
+				framesDropped += front.frame - lastDrawn - 1;
+				lastDrawn = front.frame;
+				drawSnapshot(front);
+				framesDrawn++;
+			}
+		} catch (Throwable e)
+		{
+			failure = e;
+		}
+	}
+
+	/**
+	 * draw a snapshot with the wrapped renderer
+	 * @param snapshot the snapshot to draw
+	 */
+	void drawSnapshot(FrameSnapshot snapshot)
+	{
+		renderField.copyFrom(snapshot.field);
+
+		Shape shape = null;
+		if (snapshot.piece != PieceState.INVALID)
+		{
+			shape = renderShapes[PieceState.type(snapshot.piece)];
+			PieceState.apply(snapshot.piece, shape);
+		}
+
+		delegate.draw(shape, snapshot.score);
+	}
+
+	/**
+	 *
+	 * @return how many frames were drawn
+	 */
+	public long getFramesDrawn()
+	{
+		return framesDrawn;
+	}
+
+	/**
+	 *
+	 * @return how many frames were dropped because the render thread fell behind
+	 */
+	public long getFramesDropped()
+	{
+		return framesDropped;
+	}
+}
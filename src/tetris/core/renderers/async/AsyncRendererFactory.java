@@ -0,0 +1,33 @@
+package tetris.core.renderers.async;
+
+import tetris.core.model.PlayField;
+import tetris.core.model.Renderer;
+import tetris.core.model.RendererFactory;
+
+/**
+ * factory wrapping the renderers of another factory so they draw on a render thread
+ */
+public class AsyncRendererFactory extends RendererFactory
+{
+	/**
+	 * the factory building the renderers that actually draw
+	 */
+	final RendererFactory delegate;
+
+	/**
+	 * create a factory wrapping another factory
+	 * @param factory the factory building the renderers that actually draw
+	 */
+	public AsyncRendererFactory(RendererFactory factory)
+	{
+		delegate = factory;
+	}
+
+	@Override
+	public Renderer build(PlayField field)
+	{
+		// the wrapped renderer draws a copy of the field, updated from the snapshots on the render thread
+		PlayField renderField = new PlayField(field.getWidth(), field.getHeight());
+		return new AsyncRenderer(field, renderField, delegate.build(renderField));
+	}
+}
@@ -0,0 +1,59 @@
+package tetris.core.renderers.async;
+
+import tetris.core.PieceState;
+import tetris.core.model.PlayField;
+import tetris.core.model.Shape;
+
+/**
+ * a copy of everything needed to draw one frame: the static blocks of the field, the moving piece and the score.
+ * Snapshots are reused: the async renderer passes three of them between the game and the render thread, and every
+ * snapshot is only accessed by the thread currently owning it.
+ */
+class FrameSnapshot
+{
+	/**
+	 * copy of the play field
+	 */
+	final PlayField field;
+
+	/**
+	 * the moving piece, packed by PieceState. PieceState.INVALID if there is none
+	 */
+	long piece = PieceState.INVALID;
+
+	/**
+	 * the score
+	 */
+	double score;
+
+	/**
+	 * the number of the frame in this snapshot. frames are numbered in the order they are published, starting at 1.
+	 * 0 if the snapshot was never filled
+	 */
+	long frame = 0;
+
+	/**
+	 * create a empty snapshot for a field size
+	 * @param w the width of the field
+	 * @param h the height of the field
+	 */
+	FrameSnapshot(int w, int h)
+	{
+		field = new PlayField(w, h);
+	}
+
+	/**
+	 * fill the snapshot
+	 * @param source the field to copy
+	 * @param movingShape the moving piece, may be null
+	 * @param currentScore the score
+	 * @param frameNumber the number of the frame
+	 */
+	void fill(PlayField source, Shape movingShape, double currentScore, long frameNumber)
+	{
+		field.copyFrom(source);
+		piece = movingShape == null ? PieceState.INVALID : PieceState.of(movingShape);
+		score = currentScore;
+		frame = frameNumber;
+	}
+}
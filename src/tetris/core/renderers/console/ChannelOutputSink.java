@@ -0,0 +1,176 @@
+package tetris.core.renderers.console;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * output sink writing to a channel, by default directly to stdout (fd 1).
+ * This bypasses System.out (and its locking and intermediate buffers): text is encoded straight into a reused direct
+ * buffer, which is handed to the channel once per flush(). Nothing is allocated per write.
+ * When writing to stdout, text is encoded in the same charset System.out would use, so the console shows it right.
+ */
+public class ChannelOutputSink extends OutputSink
+{
+	/**
+	 * default size of the buffer, in bytes. Bigger frames are written in multiple writes
+	 */
+	static final int DEFAULT_CAPACITY = 64 * 1024;
+
+	/**
+	 * how many chars are encoded at a time
+	 */
+	static final int CHUNK_SIZE = 1024;
+
+	/**
+	 * the channel written to
+	 */
+	final WritableByteChannel channel;
+
+	/**
+	 * the buffer output is collected in until it is written
+	 */
+	final ByteBuffer buffer;
+
+	/**
+	 * chars waiting to be encoded into the buffer
+	 */
+	final CharBuffer chars = CharBuffer.allocate(CHUNK_SIZE);
+
+	/**
+	 * encoder for text written
+	 */
+	final CharsetEncoder encoder;
+
+	/**
+	 * create a sink writing to stdout, in the charset of stdout
+	 */
+	public ChannelOutputSink()
+	{
+		// the stream is never closed, as that would close stdout
+		this(new FileOutputStream(FileDescriptor.out).getChannel(), DEFAULT_CAPACITY, getStdoutCharset());
+	}
+
+	/**
+	 * create a sink writing UTF-8 to a channel
+	 * @param target the channel to write to
+	 * @param capacity the size of the buffer, in bytes
+	 */
+	public ChannelOutputSink(WritableByteChannel target, int capacity)
+	{
+		this(target, capacity, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * create a sink writing to a channel
+	 * @param target the channel to write to
+	 * @param capacity the size of the buffer, in bytes
+	 * @param charset the charset to encode text in. chars it cannot encode are replaced
+	 */
+	public ChannelOutputSink(WritableByteChannel target, int capacity, Charset charset)
+	{
+		channel = target;
+		buffer = ByteBuffer.allocateDirect(capacity);
+		encoder = charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	}
+
+	@Override
+	public OutputSink write(CharSequence text)
+	{
+		// copy the text into the char buffer chunk by chunk and encode it.
+		// a surrogate pair split between chunks is left in the char buffer by the encoder and kept by compact()
+		int i = 0;
+		while (i < text.length())
+		{
+			int end = Math.min(text.length(), i + chars.remaining());
+			while (i < end)
+				chars.put(text.charAt(i++));
+
+			chars.flip();
+			encode(i == text.length());
+			chars.compact();
+		}
+
+		encoder.reset();
+		chars.clear();
+		return this;
+	}
+
+	@Override
+	public OutputSink write(byte[] bytes, int offset, int length)
+	{
+		while (length > 0)
+		{
+			int count = Math.min(length, buffer.remaining());
+			buffer.put(bytes, offset, count);
+			offset += count;
+			length -= count;
+			if (!buffer.hasRemaining())
+				drain();
+		}
+
+		return this;
+	}
+
+	@Override
+	public void flush()
+	{
+		drain();
+	}
+
+	@Override
+	public Charset getCharset()
+	{
+		return encoder.charset();
+	}
+
+	/**
+	 * encode the chars in the char buffer into the buffer, writing the buffer whenever it is full
+	 * @param endOfInput is this the last chunk of the text?
+	 */
+	void encode(boolean endOfInput)
+	{
+		while (encoder.encode(chars, buffer, endOfInput).isOverflow())
+			drain();
+
+		if (endOfInput)
+			while (encoder.flush(buffer).isOverflow())
+				drain();
+	}
+
+	/**
+	 * write everything in the buffer to the channel
+	 */
+	void drain()
+	{
+		buffer.flip();
+		int bytes = buffer.remaining();
+		if (bytes > 0)
+		{
+			long start = System.nanoTime();
+			try
+			{
+				while (buffer.hasRemaining())
+					channel.write(buffer);
+			} catch (IOException e)
+			{
+				throw new UncheckedIOException("could not write output", e);
+			} finally
+			{
+				recordWrite(bytes - buffer.remaining(), System.nanoTime() - start);
+			}
+		}
+
+		buffer.clear();
+	}
+}
@@ -1,5 +1,8 @@
 package tetris.core.renderers.console;
 
+import java.util.Arrays;
+import java.util.Locale;
+
 import com.diogonunes.jcolor.Attribute;
 
 import tetris.core.model.PlayField;
@@ -23,6 +26,11 @@ public class ConsoleRenderer extends Renderer
 	 */
 	static final char BLOCK_MOVING = '▓';
 
+	/**
+	 * char to use for the ghost of the moving shape, showing where it would land
+	 */
+	static final char BLOCK_GHOST = '░';
+
 	/**
 	 * how wide blocks are rendered
 	 */
@@ -33,6 +41,19 @@ public class ConsoleRenderer extends Renderer
 	 */
 	static final int LEFT_PADDING = 3;
 
+	/**
+	 * ANSI sequence clearing the console, followed by a line break
+	 */
+	static final String CLEAR_SEQUENCE = "\033[H\033[2J" + System.lineSeparator();
+
+	/**
+	 * the colors blocks are drawn in.
+	 * created once, so the canvas can cache their escape sequences
+	 */
+	static final Attribute BLUE = Attribute.BLUE_TEXT(), BLACK = Attribute.BLACK_TEXT(), CYAN = Attribute.CYAN_TEXT(),
+			GREEN = Attribute.GREEN_TEXT(), MAGENTA = Attribute.MAGENTA_TEXT(), RED = Attribute.RED_TEXT(),
+			WHITE = Attribute.WHITE_TEXT(), YELLOW = Attribute.YELLOW_TEXT();
+
 	/**
 	 * the play field to render
 	 */
@@ -43,12 +64,43 @@ public class ConsoleRenderer extends Renderer
 	 */
 	final StringCanvas canvas;
 	
+	/**
+	 * cache of the static lines of the field (without the moving shape), as drawn by drawTetrisYLine().
+	 * Lines are only drawn again when their version in the field changed, see getStaticLine()
+	 */
+	final StringBuilder[] lineCache;
+
+	/**
+	 * the field's version of each cached line, -1 if not cached
+	 */
+	final long[] lineCacheVersions;
+
+	/**
+	 * was color rendering enabled when the lines were cached?
+	 */
+	boolean lineCacheColored;
+
+	/**
+	 * the canvas lines are drawn on before they are cached
+	 */
+	final StringCanvas lineCanvas = new StringCanvas();
+
+	/**
+	 * where the frames are written to
+	 */
+	OutputSink sink;
+
 	/**
 	 * should we render in color?
 	 * Only works in good terminals, not eclipse's integrated one
 	 */
 	boolean enableColorRendering = false;
 
+	/**
+	 * should we draw the ghost of the moving shape where it would land?
+	 */
+	boolean enableGhost = true;
+
 	/**
 	 * initialize a renderer for the given play field
 	 * @param playField the field to render
@@ -58,6 +110,13 @@ public class ConsoleRenderer extends Renderer
 		super(playField);
 		field = playField;
 		canvas = new StringCanvas();
+		sink = new ChannelOutputSink();
+
+		lineCache = new StringBuilder[playField.getHeight()];
+		for (int y = 0; y < lineCache.length; y++)
+			lineCache[y] = new StringBuilder();
+		lineCacheVersions = new long[playField.getHeight()];
+		Arrays.fill(lineCacheVersions, -1);
 	}
 	
 	/**
@@ -69,6 +128,33 @@ public class ConsoleRenderer extends Renderer
 		enableColorRendering = enable;
 	}
 
+	/**
+	 * enable or disable drawing the ghost of the moving shape
+	 * @param enable should the ghost be drawn?
+	 */
+	public void setGhostEnabled(boolean enable)
+	{
+		enableGhost = enable;
+	}
+
+	/**
+	 * set where the frames are written to
+	 * @param output the sink to write to
+	 */
+	public void setOutputSink(OutputSink output)
+	{
+		sink = output;
+	}
+
+	/**
+	 *
+	 * @return where the frames are written to
+	 */
+	public OutputSink getOutputSink()
+	{
+		return sink;
+	}
+
 	/**
 	 * draw the play field
 	 * @param ms the currently moving shape
@@ -84,17 +170,22 @@ public class ConsoleRenderer extends Renderer
 				.header(getFieldRenderWidth())
 
 				// then draw the score with a separator line
-				.stringCentered(String.format("Score: %.2f", score), getFieldRenderWidth())
+				.stringCentered(formatScore(score), getFieldRenderWidth())
 				.separator(getFieldRenderWidth());
 
 		// then draw the game field
+		// only the lines with the moving shape or its ghost in them are drawn, all others are static and come from the cache
+		int ghostY = getGhostY(ms);
 		for (int y = 0; y < field.getHeight(); y++)
 		{
 			// draw the left rail
 			canvas.vRail();
 
 			// then the tetris line
-			drawTetrisYLine(ms, y);
+			if (isShapeLine(ms, ghostY, y))
+				drawTetrisYLine(canvas, ms, y);
+			else
+				canvas.getStringBuilder().append(getStaticLine(y));
 
 			// last the right rail with a line break
 			canvas.vRail().ln();
@@ -105,7 +196,8 @@ public class ConsoleRenderer extends Renderer
 
 		// draw canvas to console
 		clearConsole();
-		System.out.print(canvas.toString());
+		sink.write(canvas.getStringBuilder());
+		sink.flush();
 	}
 
 	/**
@@ -131,7 +223,7 @@ public class ConsoleRenderer extends Renderer
 				.blank(getFieldRenderWidth())
 
 				// now draw the score, centered
-				.stringLeft(String.format("Score: %.2f", score), getFieldRenderWidth())
+				.stringLeft(formatScore(score), getFieldRenderWidth())
 
 				// followed by another blank line
 				.blank(getFieldRenderWidth())
@@ -141,58 +233,170 @@ public class ConsoleRenderer extends Renderer
 
 		// draw canvas to console
 		clearConsole();
-		System.out.print(canvas.toString());
+		sink.write(canvas.getStringBuilder());
+		sink.flush();
+
+		// the game over screen replaced the last frame
+		invalidateFrame();
+	}
+
+	/**
+	 * get a static Y line of the tetris game field (without the moving shape), as drawn by drawTetrisYLine().
+	 * The line is only drawn if it changed since it was last drawn, otherwise it is taken from the cache
+	 * @param y the Y value of the line
+	 * @return the drawn line. ends with the color reset, if colored
+	 */
+	CharSequence getStaticLine(int y)
+	{
+		// color rendering was toggled, all cached lines are outdated
+		if (lineCacheColored != enableColorRendering)
+		{
+			Arrays.fill(lineCacheVersions, -1);
+			lineCacheColored = enableColorRendering;
+		}
+
+		if (lineCacheVersions[y] != field.getRowVersion(y))
+		{
+			drawTetrisYLine(lineCanvas.clear(), null, y);
+			lineCache[y].setLength(0);
+			lineCache[y].append(lineCanvas.getStringBuilder());
+			lineCacheVersions[y] = field.getRowVersion(y);
+		}
+
+		return lineCache[y];
 	}
 
 	/**
 	 * draw a Y line of the tetris game field
+	 * @param target the canvas to draw on
 	 * @param ms the current moving shape to overlay
 	 * @param y the Y value to draw the line of
-	 * @return the canvas drawn on
 	 */
-	void drawTetrisYLine(Shape ms, int y)
+	void drawTetrisYLine(StringCanvas target, Shape ms, int y)
 	{
 		for (int x = 0; x < field.getWidth(); x++)
 		{
-			// get block from play field to draw (meta for metadata- information and render
+			// get block to draw (meta for metadata- information and render
 			// for what we actuall draw)
-			char blockMeta = field.get(x, y);
-			char blockRender = blockMeta == PlayField.BLANK ? BLANK : BLOCK_STATIC;
+			int block = getBlock(ms, x, y);
+			char blockMeta = blockMeta(block);
+			char blockRender = blockRender(block);
+
+			// get color for char
+			Attribute color = getColorForMeta(blockMeta);
+
+			// draw the block (colored, maybe?)
+			// the canvas only emits a color change if the color differs from the previous block
+			target.setColorEnabled(enableColorRendering)
+					.setForegroundColor(color)
+					.append(blockRender, BLOCK_WIDTH);
+		}
+
+		// the rails are drawn without color
+		target.resetColor();
+	}
 
-			// check for block of moving shape
-			if (ms != null
+	/**
+	 * get the block to draw at a point of the field, with the moving shape drawn on top of the static blocks
+	 * @param ms the current moving shape to overlay, may be null
+	 * @param x the x coord of the block
+	 * @param y the y coord of the block
+	 * @return the block, packed as (meta char << 16) | render char. use blockMeta() and blockRender() to unpack
+	 */
+	int getBlock(Shape ms, int x, int y)
+	{
+		// get block from play field
+		char blockMeta = field.get(x, y);
+		char blockRender = blockMeta == PlayField.BLANK ? BLANK : BLOCK_STATIC;
+
+		// check for block of moving shape
+		if (ms != null
+				&& ms.getX() <= x
+				&& ms.getY() <= y
+				&& (ms.getX() + ms.getWidth()) > x
+				&& (ms.getY() + ms.getHeight()) > y)
+		{
+			// inside the shape, get block to draw from shape
+			int mx = x - ms.getX();
+			int my = y - ms.getY();
+			char[][] mblocks = ms.getBlocks();
+			if (mblocks[mx][my] != PlayField.BLANK)
+			{
+				blockMeta = mblocks[mx][my];
+				blockRender = BLOCK_MOVING;
+			}
+		}
+
+		// check for block of the ghost
+		if (blockRender == BLANK)
+		{
+			int ghostY = getGhostY(ms);
+			if (ghostY >= 0
 					&& ms.getX() <= x
-					&& ms.getY() <= y
+					&& ghostY <= y
 					&& (ms.getX() + ms.getWidth()) > x
-					&& (ms.getY() + ms.getHeight()) > y)
+					&& (ghostY + ms.getHeight()) > y)
 			{
-				// inside the shape, get block to draw from shape
-				int mx = x - ms.getX();
-				int my = y - ms.getY();
-				char[][] mblocks = ms.getBlocks();
-				if (mblocks[mx][my] != PlayField.BLANK)
+				char ghostBlock = ms.getBlocks()[x - ms.getX()][y - ghostY];
+				if (ghostBlock != PlayField.BLANK)
 				{
-					blockMeta = mblocks[mx][my];
-					blockRender = BLOCK_MOVING;
+					blockMeta = ghostBlock;
+					blockRender = BLOCK_GHOST;
 				}
 			}
+		}
 
-			// get color for char
-			Attribute color = getColorForMeta(blockMeta);
+		return (blockMeta << 16) | blockRender;
+	}
 
-			// draw the block (colored, maybe?)
-			for (int w = 0; w < BLOCK_WIDTH; w++)
-				if (enableColorRendering && color != null)
-				{
-					// draw in color
-					canvas.setColorEnabled(true)
-							.setForegroundColor(color)
-							.append(blockRender + "")
-							.setColorEnabled(false);
-				}
-				else // draw without color
-					canvas.append(blockRender + "");
-		}
+	/**
+	 * get where the ghost of the moving shape is drawn.
+	 * The landing y is cached by the shape, so this is cheap to call for every block
+	 * @param ms the moving shape, may be null
+	 * @return the y the ghost is drawn at, or -1 if no ghost is drawn
+	 */
+	int getGhostY(Shape ms)
+	{
+		if (!enableGhost || ms == null)
+			return -1;
+
+		// no ghost if the shape already is where it would land
+		int ghostY = ms.getLandingY();
+		return ghostY > ms.getY() ? ghostY : -1;
+	}
+
+	/**
+	 * check if a y line has the moving shape or its ghost in it
+	 * @param ms the moving shape, may be null
+	 * @param ghostY the y of the ghost, see getGhostY()
+	 * @param y the y line to check
+	 * @return does the line have the shape or ghost in it?
+	 */
+	static boolean isShapeLine(Shape ms, int ghostY, int y)
+	{
+		if (ms == null)
+			return false;
+
+		return (y >= ms.getY() && y < ms.getY() + ms.getHeight())
+				|| (ghostY >= 0 && y >= ghostY && y < ghostY + ms.getHeight());
+	}
+
+	/**
+	 * @param block a block packed by getBlock()
+	 * @return the meta char of the block
+	 */
+	static char blockMeta(int block)
+	{
+		return (char) (block >>> 16);
+	}
+
+	/**
+	 * @param block a block packed by getBlock()
+	 * @return the char to draw for the block
+	 */
+	static char blockRender(int block)
+	{
+		return (char) block;
 	}
 
 	/**
@@ -215,33 +419,33 @@ public class ConsoleRenderer extends Renderer
 		switch (Character.toLowerCase(meta))
 		{
 		case 'b':
-			return Attribute.BLUE_TEXT();
+			return BLUE;
 		case 's':
-			return Attribute.BLACK_TEXT();
+			return BLACK;
 		case 'c':
-			return Attribute.CYAN_TEXT();
+			return CYAN;
 		case 'g':
-			return Attribute.GREEN_TEXT();
+			return GREEN;
 		case 'm':
-			return Attribute.MAGENTA_TEXT();
+			return MAGENTA;
 		case 'r':
-			return Attribute.RED_TEXT();
+			return RED;
 		case 'w':
-			return Attribute.WHITE_TEXT();
+			return WHITE;
 		case 'y':
-			return Attribute.YELLOW_TEXT();
+			return YELLOW;
 		default:
 			return null;
 		}
 	}
 
 	/**
-	 * Clear the console. Only works in CMD and Terminal, not eclipse integrated console
+	 * Clear the console. Only works in CMD and Terminal, not eclipse integrated console.
+	 * Only appended to the sink, so it is written together with the frame drawn after it
 	 */
 	void clearConsole()
 	{
-		System.out.print("\033[H\033[2J" + System.lineSeparator());
-		System.out.flush();
+		sink.write(CLEAR_SEQUENCE);
 	}
 
 	/**
@@ -252,4 +456,15 @@ public class ConsoleRenderer extends Renderer
 	{
 		return field.getWidth() * BLOCK_WIDTH;
 	}
+
+	/**
+	 * format the score line. Always uses a '.' as decimal separator, regardless of the default locale, so every renderer
+	 * shows the same text (the template renderer formats the score by hand, the same way)
+	 * @param score the score to format
+	 * @return the score line
+	 */
+	static String formatScore(double score)
+	{
+		return String.format(Locale.ROOT, "Score: %.2f", score);
+	}
 }
@@ -10,12 +10,46 @@ public class ConsoleRendererFactory extends RendererFactory
 	 * should the renderer render in color?
 	 */
 	boolean enableColor = false;
+
+	/**
+	 * should the renderer only draw what changed since the last frame?
+	 */
+	boolean enableDifferential = false;
+
+	/**
+	 * should the renderer patch a pre- encoded frame template instead of drawing every frame?
+	 */
+	boolean enableTemplate = false;
+
+	/**
+	 * should the renderer draw the ghost of the moving shape?
+	 */
+	boolean enableGhost = true;
+
+	/**
+	 * where the renderers write to. null to give every renderer its own sink writing to stdout
+	 */
+	OutputSink sink = null;
 	
 	@Override
 	public Renderer build(PlayField field)
 	{
-		ConsoleRenderer renderer = new ConsoleRenderer(field);
+		// the renderers draw in different ways, they cannot be combined
+		if (enableDifferential && enableTemplate)
+			throw new IllegalStateException("differential and template rendering cannot be enabled both");
+
+		ConsoleRenderer renderer;
+		if (enableDifferential)
+			renderer = new DiffConsoleRenderer(field);
+		else if (enableTemplate)
+			renderer = new TemplateConsoleRenderer(field);
+		else
+			renderer = new ConsoleRenderer(field);
+
 		renderer.enableColorRendering = enableColor;
+		renderer.enableGhost = enableGhost;
+		if (sink != null)
+			renderer.sink = sink;
 		return renderer;
 	}
 	
@@ -28,4 +62,50 @@ public class ConsoleRendererFactory extends RendererFactory
 		enableColor = enable;
 		return this;
 	}
+
+	/**
+	 * enable or disable differential rendering (only draw blocks that changed since the last frame).
+	 * cannot be combined with template rendering
+	 * @param enable should differential rendering be enabled or disable?
+	 * @return the factory instance
+	 */
+	public ConsoleRendererFactory setDifferentialEnabled(boolean enable)
+	{
+		enableDifferential = enable;
+		return this;
+	}
+
+	/**
+	 * enable or disable template rendering (encode the frame once, then only patch blocks and score into it).
+	 * cannot be combined with differential rendering
+	 * @param enable should template rendering be enabled or disable?
+	 * @return the factory instance
+	 */
+	public ConsoleRendererFactory setTemplateEnabled(boolean enable)
+	{
+		enableTemplate = enable;
+		return this;
+	}
+
+	/**
+	 * enable or disable drawing the ghost of the moving shape, showing where it would land
+	 * @param enable should the ghost be drawn?
+	 * @return the factory instance
+	 */
+	public ConsoleRendererFactory setGhostEnabled(boolean enable)
+	{
+		enableGhost = enable;
+		return this;
+	}
+
+	/**
+	 * set where the renderers write to
+	 * @param output the sink to write to, or null to write to stdout
+	 * @return the factory instance
+	 */
+	public ConsoleRendererFactory setOutputSink(OutputSink output)
+	{
+		sink = output;
+		return this;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,254 @@
+package tetris.core.renderers.console;
+
+import com.diogonunes.jcolor.Ansi;
+import com.diogonunes.jcolor.Attribute;
+
+import tetris.core.model.PlayField;
+import tetris.core.model.Shape;
+
+/**
+ * console renderer that only draws what changed since the last frame.
+ * The first frame is drawn in full, after that the renderer keeps the blocks of the previous frame and only moves the
+ * cursor to the blocks that changed (using ANSI cursor positioning) and redraws those.
+ * This avoids flickering and uses way less bandwidth on slow terminals / over SSH.
+ */
+public class DiffConsoleRenderer extends ConsoleRenderer
+{
+	/**
+	 * the terminal row (1- based) the header line is drawn on.
+	 * clearConsole() adds a line break after clearing, so the frame starts on the second row
+	 */
+	static final int HEADER_ROW = 2;
+
+	/**
+	 * the terminal row (1- based) the score line is drawn on
+	 */
+	static final int SCORE_ROW = HEADER_ROW + 1;
+
+	/**
+	 * the terminal row (1- based) the first y line of the field is drawn on
+	 */
+	static final int FIELD_ROW = SCORE_ROW + 2;
+
+	/**
+	 * the blocks of the previous frame, packed by getBlock(). [y * width + x]
+	 */
+	final int[] previousBlocks;
+
+	/**
+	 * the version of every y line of the field in the previous frame.
+	 * lines with the same version did not change, so they only have to be compared where the moving shape is or was
+	 */
+	final long[] previousRowVersions;
+
+	/**
+	 * the y lines the moving shape and its ghost covered in the previous frame:
+	 * the y of the shape and ghost (-1 if none) and the height of the shape (0 if there was no shape)
+	 */
+	int previousShapeY, previousGhostY = -1, previousShapeHeight;
+
+	/**
+	 * the score drawn in the previous frame
+	 */
+	double previousScore;
+
+	/**
+	 * is there a previous frame on screen to draw the changes onto?
+	 */
+	boolean hasPreviousFrame = false;
+
+	/**
+	 * buffer the changes are collected in before printing them
+	 */
+	final StringBuilder out = new StringBuilder();
+
+	/**
+	 * initialize a renderer for the given play field
+	 * @param playField the field to render
+	 */
+	public DiffConsoleRenderer(PlayField playField)
+	{
+		super(playField);
+		previousBlocks = new int[playField.getWidth() * playField.getHeight()];
+		previousRowVersions = new long[playField.getHeight()];
+	}
+
+	/**
+	 * draw the play field, only drawing what changed since the last frame
+	 * @param ms the currently moving shape
+	 * @param score the players score
+	 */
+	@Override
+	public void draw(Shape ms, double score)
+	{
+		// nothing to diff against, draw the full frame first
+		if (!hasPreviousFrame)
+		{
+			super.draw(ms, score);
+			rememberFrame(ms, score);
+			return;
+		}
+
+		out.setLength(0);
+
+		// redraw the score line if the score changed
+		if (score != previousScore)
+		{
+			previousScore = score;
+			moveCursor(SCORE_ROW, LEFT_PADDING + 1);
+			appendScoreLine(score);
+		}
+
+		// redraw all blocks that changed
+		// (row, col) is where the cursor is after the last block drawn, so neighboring blocks need no positioning
+		int row = -1, col = -1;
+		int ghostY = getGhostY(ms);
+		for (int y = 0; y < field.getHeight(); y++)
+		{
+			// skip lines that did not change and neither have nor had the moving shape or its ghost in them
+			if (!isShapeLine(ms, ghostY, y) && !wasShapeLine(y) && field.getRowVersion(y) == previousRowVersions[y])
+				continue;
+			previousRowVersions[y] = field.getRowVersion(y);
+
+			for (int x = 0; x < field.getWidth(); x++)
+			{
+				int block = getBlock(ms, x, y);
+				int i = y * field.getWidth() + x;
+				if (block == previousBlocks[i])
+					continue;
+
+				previousBlocks[i] = block;
+				int blockRow = FIELD_ROW + y;
+				int blockCol = getBlockColumn(x);
+				if (row != blockRow || col != blockCol)
+					moveCursor(blockRow, blockCol);
+
+				appendBlock(block);
+				row = blockRow;
+				col = blockCol + BLOCK_WIDTH;
+			}
+		}
+		rememberShape(ms, ghostY);
+
+		// nothing changed, nothing to print
+		if (out.length() == 0)
+			return;
+
+		// park the cursor below the frame, where the full draw leaves it
+		moveCursor(FIELD_ROW + field.getHeight() + 1, LEFT_PADDING + 1);
+		sink.write(out);
+		sink.flush();
+	}
+
+	/**
+	 * draw the game over screen.
+	 * this replaces the whole frame, so the next draw() starts over with a full frame
+	 * @param score the final score the player reached
+	 */
+	@Override
+	public void drawGameOver(double score)
+	{
+		super.drawGameOver(score);
+		hasPreviousFrame = false;
+	}
+
+	/**
+	 * remember the blocks and score of a fully drawn frame
+	 * @param ms the moving shape drawn
+	 * @param score the score drawn
+	 */
+	void rememberFrame(Shape ms, double score)
+	{
+		for (int y = 0; y < field.getHeight(); y++)
+		{
+			previousRowVersions[y] = field.getRowVersion(y);
+			for (int x = 0; x < field.getWidth(); x++)
+				previousBlocks[y * field.getWidth() + x] = getBlock(ms, x, y);
+		}
+
+		rememberShape(ms, getGhostY(ms));
+
+		previousScore = score;
+		hasPreviousFrame = true;
+	}
+
+	/**
+	 * append a ANSI sequence moving the cursor to a position
+	 * @param row the row to move to (1- based)
+	 * @param col the column to move to (1- based)
+	 */
+	void moveCursor(int row, int col)
+	{
+		out.append("\033[").append(row).append(';').append(col).append('H');
+	}
+
+	/**
+	 * append a block (colored, maybe?)
+	 * @param block the block to append, packed by getBlock()
+	 */
+	void appendBlock(int block)
+	{
+		Attribute color = getColorForMeta(blockMeta(block));
+		boolean colored = enableColorRendering && color != null;
+		if (colored)
+			out.append(StringCanvas.getEscapeSequence(color));
+
+		for (int w = 0; w < BLOCK_WIDTH; w++)
+			out.append(blockRender(block));
+
+		if (colored)
+			out.append(Ansi.RESET);
+	}
+
+	/**
+	 * append the score line, including rails. Looks the same as the line drawn by a full draw()
+	 * @param score the score to draw
+	 */
+	void appendScoreLine(double score)
+	{
+		String str = formatScore(score);
+		int spaceToFill = getFieldRenderWidth() - str.length();
+
+		out.append('║');
+		for (int i = 0; i < spaceToFill / 2; i++)
+			out.append(' ');
+		out.append(str);
+		for (int i = 0; i < (spaceToFill + 1) / 2; i++)
+			out.append(' ');
+		out.append('║');
+	}
+
+	/**
+	 * remember which y lines the moving shape and its ghost covered in the frame drawn
+	 * @param ms the moving shape drawn, may be null
+	 * @param ghostY the y of the ghost drawn, see getGhostY()
+	 */
+	void rememberShape(Shape ms, int ghostY)
+	{
+		previousShapeY = ms == null ? 0 : ms.getY();
+		previousShapeHeight = ms == null ? 0 : ms.getHeight();
+		previousGhostY = ghostY;
+	}
+
+	/**
+	 * check if a y line had the moving shape or its ghost in it in the previous frame
+	 * @param y the y line to check
+	 * @return did the line have the shape or ghost in it?
+	 */
+	boolean wasShapeLine(int y)
+	{
+		return (y >= previousShapeY && y < previousShapeY + previousShapeHeight)
+				|| (previousGhostY >= 0 && y >= previousGhostY && y < previousGhostY + previousShapeHeight);
+	}
+
+	/**
+	 * get the terminal column a block is drawn at
+	 * @param x the x coord of the block
+	 * @return the column (1- based) of the block's first char
+	 */
+	int getBlockColumn(int x)
+	{
+		// padding, then the left rail, then the blocks
+		return LEFT_PADDING + 2 + x * BLOCK_WIDTH;
+	}
+}
@@ -0,0 +1,139 @@
+package tetris.core.renderers.console;
+
+import java.nio.charset.Charset;
+
+/**
+ * where console renderers write their output to.
+ * Output is buffered until flush() is called, so a frame is written in as few writes as possible.
+ * Keeps counters on the number, size and latency of the writes done. Not thread safe.
+ */
+public abstract class OutputSink
+{
+	/**
+	 * how many writes were done
+	 */
+	long writes = 0;
+
+	/**
+	 * how many bytes were written in total
+	 */
+	long bytesWritten = 0;
+
+	/**
+	 * how long all writes took in total, and the longest write, in nanoseconds
+	 */
+	long writeNanos = 0, maxWriteNanos = 0;
+
+	/**
+	 * append text to the output
+	 * @param text the text to append
+	 * @return the sink instance
+	 */
+	public abstract OutputSink write(CharSequence text);
+
+	/**
+	 * append already encoded bytes to the output
+	 * @param bytes the bytes to append
+	 * @param offset the offset of the first byte to append
+	 * @param length how many bytes to append
+	 * @return the sink instance
+	 */
+	public abstract OutputSink write(byte[] bytes, int offset, int length);
+
+	/**
+	 * write everything appended so far
+	 */
+	public abstract void flush();
+
+	/**
+	 * get the charset text is encoded in. Bytes written with write(byte[], int, int) have to be encoded in it, too
+	 * @return the charset of the output
+	 */
+	public abstract Charset getCharset();
+
+	/**
+	 * get the charset System.out encodes in, which is the one the console expects.
+	 * That is not always the default charset: e.g. on windows, the console uses its own code page
+	 * @return the charset of stdout
+	 */
+	public static Charset getStdoutCharset()
+	{
+		// stdout.encoding is set since java 19, sun.stdout.encoding by older versions when stdout is a console
+		for (String property : new String[] { "stdout.encoding", "sun.stdout.encoding" })
+		{
+			String name = System.getProperty(property);
+			if (name != null && Charset.isSupported(name))
+				return Charset.forName(name);
+		}
+
+		return Charset.defaultCharset();
+	}
+
+	/**
+	 * record a write for the counters
+	 * @param bytes how many bytes were written
+	 * @param nanos how long the write took
+	 */
+	void recordWrite(long bytes, long nanos)
+	{
+		writes++;
+		bytesWritten += bytes;
+		writeNanos += nanos;
+		maxWriteNanos = Math.max(maxWriteNanos, nanos);
+	}
+
+	/**
+	 *
+	 * @return how many writes were done
+	 */
+	public long getWrites()
+	{
+		return writes;
+	}
+
+	/**
+	 *
+	 * @return how many bytes were written in total
+	 */
+	public long getBytesWritten()
+	{
+		return bytesWritten;
+	}
+
+	/**
+	 *
+	 * @return the mean size of a write, in bytes
+	 */
+	public double getMeanWriteBytes()
+	{
+		return writes == 0 ? 0 : (double) bytesWritten / writes;
+	}
+
+	/**
+	 *
+	 * @return the mean time a write took, in nanoseconds
+	 */
+	public double getMeanWriteNanos()
+	{
+		return writes == 0 ? 0 : (double) writeNanos / writes;
+	}
+
+	/**
+	 *
+	 * @return the time the longest write took, in nanoseconds
+	 */
+	public long getMaxWriteNanos()
+	{
+		return maxWriteNanos;
+	}
+
+	/**
+	 * format the counters as a human readable summary
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("writes: %d, %d bytes (mean %.0f bytes), latency mean %.1f us, max %.1f us", writes, bytesWritten,
+				getMeanWriteBytes(), getMeanWriteNanos() / 1e3, maxWriteNanos / 1e3);
+	}
+}
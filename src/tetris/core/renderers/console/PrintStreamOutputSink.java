@@ -0,0 +1,83 @@
+package tetris.core.renderers.console;
+
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+
+/**
+ * output sink writing to a PrintStream, by default whatever System.out currently is.
+ * Use this if System.out is redirected.
+ * Text is counted in chars instead of bytes, as the stream does the encoding.
+ */
+public class PrintStreamOutputSink extends OutputSink
+{
+	/**
+	 * the stream to write to, or null to write to System.out
+	 */
+	final PrintStream stream;
+
+	/**
+	 * the charset the stream encodes in, see getCharset()
+	 */
+	final Charset charset;
+
+	/**
+	 * create a sink writing to System.out
+	 */
+	public PrintStreamOutputSink()
+	{
+		this(null);
+	}
+
+	/**
+	 * create a sink writing to a stream
+	 * @param target the stream to write to, or null to write to System.out
+	 */
+	public PrintStreamOutputSink(PrintStream target)
+	{
+		stream = target;
+		charset = target != null ? Charset.defaultCharset() : getStdoutCharset();
+	}
+
+	@Override
+	public OutputSink write(CharSequence text)
+	{
+		long start = System.nanoTime();
+		getStream().append(text);
+		recordWrite(text.length(), System.nanoTime() - start);
+		return this;
+	}
+
+	@Override
+	public OutputSink write(byte[] bytes, int offset, int length)
+	{
+		long start = System.nanoTime();
+		getStream().write(bytes, offset, length);
+		recordWrite(length, System.nanoTime() - start);
+		return this;
+	}
+
+	@Override
+	public void flush()
+	{
+		getStream().flush();
+	}
+
+	/**
+	 * get the charset the stream encodes in. A PrintStream does not tell its charset, so for streams other than
+	 * System.out this assumes the default charset, which is what a PrintStream uses unless told otherwise
+	 */
+	@Override
+	public Charset getCharset()
+	{
+		return charset;
+	}
+
+	/**
+	 *
+	 * @return the stream to write to
+	 */
+	PrintStream getStream()
+	{
+		return stream != null ? stream : System.out;
+	}
+}
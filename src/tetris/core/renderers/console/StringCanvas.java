@@ -16,9 +16,29 @@ public class StringCanvas
 	*/
 
 	/**
-	 * the internal string builder drawn to
+	 * the line separator, cached so it doesn't have to be looked up for every line
 	 */
-	StringBuilder canvas = new StringBuilder();
+	static final String LINE_SEPARATOR = System.lineSeparator();
+
+	/**
+	 * the fixed set of colors the console renderers draw in, see {@code ConsoleRenderer.getColorForMeta()}
+	 */
+	static final Attribute[] COLORS = { ConsoleRenderer.BLUE, ConsoleRenderer.BLACK, ConsoleRenderer.CYAN,
+			ConsoleRenderer.GREEN, ConsoleRenderer.MAGENTA, ConsoleRenderer.RED, ConsoleRenderer.WHITE,
+			ConsoleRenderer.YELLOW };
+
+	/**
+	 * the ANSI escape sequences of COLORS, in the same order.
+	 * generated once when the class is loaded and never changed, so they are read without locking.
+	 * Attribute has no equals(), so colors are looked up by identity. Use the same Attribute instance for the same color!
+	 */
+	static final String[] COLOR_SEQUENCES = generateEscapeSequences(COLORS);
+
+	/**
+	 * the internal string builder drawn to.
+	 * reused for every frame
+	 */
+	final StringBuilder canvas = new StringBuilder();
 
 	/**
 	 * how much padding is added to the left of each line
@@ -35,13 +55,25 @@ public class StringCanvas
 	 */
 	Attribute currentFGColor;
 
+	/**
+	 * the escape sequence of currentFGColor
+	 */
+	String currentFGSequence;
+
+	/**
+	 * the escape sequence of the color that is currently active in the drawn output, or null if none is.
+	 * Used to only emit a color change when the color actually changes
+	 */
+	String activeSequence;
+
 	/**
 	 * clear the canvas
 	 * @return the cleared canvas
 	 */
 	public StringCanvas clear()
 	{
-		canvas = new StringBuilder();
+		canvas.setLength(0);
+		activeSequence = null;
 		padding(leftPadding);
 		return this;
 	}
@@ -89,6 +121,18 @@ public class StringCanvas
 		return this;
 	}
 
+	/**
+	 * disable color rendering and end the color currently active in the output (if any) right away,
+	 * so the output drawn so far can be used without the output following it
+	 * @return the canvas object
+	 */
+	public StringCanvas resetColor()
+	{
+		enableColors = false;
+		updateColor();
+		return this;
+	}
+
 	/**
 	 * set the foreground color to render in. call with null to reset
 	 * @param fg thet color to render in
@@ -96,7 +140,11 @@ public class StringCanvas
 	 */
 	public StringCanvas setForegroundColor(Attribute fg)
 	{
-		currentFGColor = fg;
+		if (fg != currentFGColor)
+		{
+			currentFGColor = fg;
+			currentFGSequence = fg == null ? null : getEscapeSequence(fg);
+		}
 		return this;
 	}
 
@@ -107,13 +155,81 @@ public class StringCanvas
 	 */
 	public StringCanvas append(String s)
 	{
-		if (!enableColors || currentFGColor == null)
-			canvas.append(s);
-		else
-			canvas.append(Ansi.colorize(s, currentFGColor));
+		updateColor();
+		canvas.append(s);
+		return this;
+	}
+
+	/**
+	 * append a char to the canvas, colored in the current foreground color
+	 * @param c the char to append
+	 * @return the canvas drawn on
+	 */
+	public StringCanvas append(char c)
+	{
+		updateColor();
+		canvas.append(c);
+		return this;
+	}
+
+	/**
+	 * append a char to the canvas multiple times, colored in the current foreground color
+	 * @param c the char to append
+	 * @param count how often to append the char
+	 * @return the canvas drawn on
+	 */
+	public StringCanvas append(char c, int count)
+	{
+		updateColor();
+		for (int i = 0; i < count; i++)
+			canvas.append(c);
 		return this;
 	}
 
+	/**
+	 * emit a color change into the canvas if the color to draw in is not the color currently active in the output.
+	 * consecutive chars of the same color thus share a single escape sequence
+	 */
+	void updateColor()
+	{
+		String wanted = enableColors ? currentFGSequence : null;
+		if (wanted == activeSequence)
+			return;
+
+		canvas.append(wanted == null ? Ansi.RESET : wanted);
+		activeSequence = wanted;
+	}
+
+	/**
+	 * get the escape sequence of a color.
+	 * the sequences of the renderers' colors are looked up in the precomputed table, any other color is generated on
+	 * every call
+	 * @param color the color to get the sequence of
+	 * @return the escape sequence
+	 */
+	static String getEscapeSequence(Attribute color)
+	{
+		for (int i = 0; i < COLORS.length; i++)
+			if (COLORS[i] == color)
+				return COLOR_SEQUENCES[i];
+
+		return Ansi.generateCode(color);
+	}
+
+	/**
+	 * generate the escape sequences of colors
+	 * @param colors the colors
+	 * @return the escape sequences of the colors, in the same order
+	 */
+	static String[] generateEscapeSequences(Attribute[] colors)
+	{
+		String[] sequences = new String[colors.length];
+		for (int i = 0; i < colors.length; i++)
+			sequences[i] = Ansi.generateCode(colors[i]);
+
+		return sequences;
+	}
+
 	/**
 	 * draw a centered string to the canvas
 	 * @param str the string to draw
@@ -123,12 +239,11 @@ public class StringCanvas
 	public StringCanvas stringCentered(String str, int width)
 	{
 		// start with the left "rail"...
-		append("║");
+		append('║');
 
 		// fill the left of the string with spaces
 		int spaceToFill = width - str.length();
-		for (int i = 0; i < (spaceToFill / 2); i++)
-			append(" ");
+		append(' ', spaceToFill / 2);
 
 		// draw the string
 		append(str);
@@ -136,11 +251,10 @@ public class StringCanvas
 		// and fill the right of the string with spaces
 		if (spaceToFill % 2 != 0)
 			spaceToFill++;
-		for (int i = 0; i < (spaceToFill / 2); i++)
-			append(" ");
+		append(' ', spaceToFill / 2);
 
 		// ... and end with the right "rail"
-		append("║");
+		append('║');
 		ln();
 		return this;
 	}
@@ -154,15 +268,14 @@ public class StringCanvas
 	public StringCanvas stringLeft(String str, int width)
 	{
 		// start with the left "rail"...
-		append("║");
+		append('║');
 
 		// ... print the string and fill to width with spaces ...
 		append(str);
-		for (int i = 0; i < (width - str.length()); i++)
-			append(" ");
+		append(' ', width - str.length());
 
 		// ... and end with the right "rail"
-		append("║");
+		append('║');
 		ln();
 		return this;
 	}
@@ -174,10 +287,9 @@ public class StringCanvas
 	 */
 	public StringCanvas header(int width)
 	{
-		append("╔");
-		for (int i = 0; i < width; i++)
-			append("═");
-		append("╗");
+		append('╔');
+		append('═', width);
+		append('╗');
 		ln();
 		return this;
 	}
@@ -189,10 +301,9 @@ public class StringCanvas
 	 */
 	public StringCanvas separator(int width)
 	{
-		append("╠");
-		for (int i = 0; i < width; i++)
-			append("═");
-		append("╣");
+		append('╠');
+		append('═', width);
+		append('╣');
 		ln();
 		return this;
 	}
@@ -204,10 +315,9 @@ public class StringCanvas
 	 */
 	public StringCanvas footer(int width)
 	{
-		append("╚");
-		for (int i = 0; i < width; i++)
-			append("═");
-		append("╝");
+		append('╚');
+		append('═', width);
+		append('╝');
 		ln();
 		return this;
 	}
@@ -219,10 +329,9 @@ public class StringCanvas
 	 */
 	public StringCanvas blank(int width)
 	{
-		append("║");
-		for (int i = 0; i < width; i++)
-			append(" ");
-		append("║");
+		append('║');
+		append(' ', width);
+		append('║');
 		ln();
 		return this;
 	}
@@ -233,7 +342,7 @@ public class StringCanvas
 	 */
 	public StringCanvas vRail()
 	{
-		append("║");
+		append('║');
 		return this;
 	}
 
@@ -244,8 +353,7 @@ public class StringCanvas
 	 */
 	public StringCanvas padding(int width)
 	{
-		for (int i = 0; i < width; i++)
-			append(" ");
+		append(' ', width);
 		return this;
 	}
 
@@ -255,7 +363,7 @@ public class StringCanvas
 	 */
 	public StringCanvas ln()
 	{
-		append(System.lineSeparator());
+		append(LINE_SEPARATOR);
 		padding(leftPadding);
 		return this;
 	}
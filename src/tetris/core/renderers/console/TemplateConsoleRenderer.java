@@ -0,0 +1,348 @@
+package tetris.core.renderers.console;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.diogonunes.jcolor.Ansi;
+import com.diogonunes.jcolor.Attribute;
+
+import tetris.core.model.PlayField;
+import tetris.core.model.Shape;
+
+/**
+ * console renderer that encodes the frame layout (header, rails, separator, footer) to bytes only once, in the charset of
+ * the output sink.
+ * Every frame only the block slots and score digits are overwritten in place, and the whole buffer is written to the
+ * sink with a single call. Drawing a frame thus allocates nothing and needs no char to byte encoding.
+ *
+ * To be able to patch blocks in place, every block slot has the same size in bytes:
+ * a SGR escape sequence (color or reset), followed by the block's chars. The SGR parameter is padded with leading
+ * zeros to make up for blocks whose chars take less bytes (in UTF-8, a blank is 1 byte per char, the block chars 3).
+ * The charset has to encode ASCII as single bytes, like UTF-8 and the console code pages do.
+ */
+public class TemplateConsoleRenderer extends ConsoleRenderer
+{
+	/**
+	 * how many bytes a encoded block char can take at most (3 in UTF-8, as all chars used are in the BMP)
+	 */
+	static final int MAX_CHAR_BYTES = 3;
+
+	/**
+	 * how many bytes every block slot takes: ESC [ 2 digits m, plus the chars of the block
+	 */
+	static final int SLOT_BYTES = 2 + 2 + 1 + BLOCK_WIDTH * MAX_CHAR_BYTES;
+
+	/**
+	 * the label in front of the score
+	 */
+	static final String SCORE_LABEL = "Score: ";
+
+	/**
+	 * the encoded frame. the blocks and score are patched into this before it is written
+	 */
+	byte[] frame;
+
+	/**
+	 * byte offset of the first block slot of each y line in {@code frame}
+	 */
+	int[] lineOffsets;
+
+	/**
+	 * byte offset and width (in chars = bytes) of the text of the score line in {@code frame}
+	 */
+	int scoreOffset, scoreWidth;
+
+	/**
+	 * scratch buffer the score text is formatted in. Long enough for the label and any long value
+	 */
+	final byte[] scoreText = new byte[SCORE_LABEL.length() + 24];
+
+	/**
+	 * the blocks currently patched into the frame, packed by getBlock(). [y * width + x]
+	 */
+	int[] frameBlocks;
+
+	/**
+	 * the score currently patched into the frame
+	 */
+	double frameScore;
+
+	/**
+	 * was color rendering enabled when the frame was encoded?
+	 */
+	boolean frameColored;
+
+	/**
+	 * the charset the frame was encoded in
+	 */
+	Charset frameCharset;
+
+	/**
+	 * does the console have to be cleared before the next frame?
+	 */
+	boolean needsClear = true;
+
+	/**
+	 * the encoded slots of all blocks drawn so far, so every kind of block is encoded only once.
+	 * indexed by blockSlotIndex()
+	 */
+	final byte[][] slotCache = new byte[128 * 4][];
+
+	/**
+	 * initialize a renderer for the given play field
+	 * @param playField the field to render
+	 */
+	public TemplateConsoleRenderer(PlayField playField)
+	{
+		super(playField);
+	}
+
+	/**
+	 * draw the play field by patching the pre- encoded frame
+	 * @param ms the currently moving shape
+	 * @param score the players score
+	 */
+	@Override
+	public void draw(Shape ms, double score)
+	{
+		// (re-) build the frame on the first draw, if color rendering was toggled or the sink's charset changed
+		if (frame == null || frameColored != enableColorRendering || !sink.getCharset().equals(frameCharset))
+		{
+			Arrays.fill(slotCache, null);
+			encodeFrame();
+		}
+
+		// patch the score and all blocks that changed
+		if (score != frameScore)
+			patchScore(score);
+
+		for (int y = 0; y < field.getHeight(); y++)
+			for (int x = 0; x < field.getWidth(); x++)
+			{
+				int block = getBlock(ms, x, y);
+				int i = y * field.getWidth() + x;
+				if (block != frameBlocks[i])
+				{
+					frameBlocks[i] = block;
+					System.arraycopy(getSlot(block), 0, frame, lineOffsets[y] + x * SLOT_BYTES, SLOT_BYTES);
+				}
+			}
+
+		// the frame draws over the previous one, so the console only needs to be cleared if something else was drawn
+		if (needsClear)
+		{
+			clearConsole();
+			needsClear = false;
+		}
+
+		sink.write(frame, 0, frame.length);
+		sink.flush();
+	}
+
+	/**
+	 * draw the game over screen.
+	 * this replaces the whole frame, so the next draw() has to clear the console first
+	 * @param score the final score the player reached
+	 */
+	@Override
+	public void drawGameOver(double score)
+	{
+		super.drawGameOver(score);
+		needsClear = true;
+	}
+
+	/**
+	 * encode the frame layout with all blocks blank and no score
+	 */
+	void encodeFrame()
+	{
+		int width = getFieldRenderWidth();
+		frameCharset = sink.getCharset();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		StringCanvas line = new StringCanvas();
+
+		// move the cursor home, then draw the frame where a full draw does after clearing
+		write(out, "\033[H" + StringCanvas.LINE_SEPARATOR);
+
+		// header line
+		write(out, line.clear().padding(LEFT_PADDING).header(width).toString());
+
+		// score line, the text is written by patchScore()
+		write(out, line.clear().padding(LEFT_PADDING).vRail().toString());
+		scoreOffset = out.size();
+		scoreWidth = width;
+		write(out, line.clear().padding(width).vRail().ln().toString());
+
+		// separator
+		write(out, line.clear().padding(LEFT_PADDING).separator(width).toString());
+
+		// the lines of the field. every line is padding, rail, block slots, color reset and rail
+		lineOffsets = new int[field.getHeight()];
+		frameColored = enableColorRendering;
+		byte[] blankSlot = getSlot(getBlank());
+		for (int y = 0; y < field.getHeight(); y++)
+		{
+			write(out, line.clear().padding(LEFT_PADDING).vRail().toString());
+			lineOffsets[y] = out.size();
+			for (int x = 0; x < field.getWidth(); x++)
+				out.write(blankSlot, 0, SLOT_BYTES);
+			write(out, line.clear().append(Ansi.RESET).vRail().ln().toString());
+		}
+
+		// footer line
+		write(out, line.clear().padding(LEFT_PADDING).footer(width).toString());
+		frame = out.toByteArray();
+
+		// everything is blank now
+		frameBlocks = new int[field.getWidth() * field.getHeight()];
+		Arrays.fill(frameBlocks, getBlank());
+		frameScore = Double.NaN;
+		needsClear = true;
+	}
+
+	/**
+	 * write the score line into the frame, centered like the full draw does it.
+	 * The text is the same formatScore() gives, just without going through a string
+	 * @param score the score to write
+	 */
+	void patchScore(double score)
+	{
+		frameScore = score;
+
+		// format the score with two decimals into the end of the scratch buffer, right to left
+		long cents = Math.round(Math.abs(score) * 100);
+		int pos = scoreText.length;
+		int digits = 0;
+		while (pos > SCORE_LABEL.length() && (cents > 0 || digits < 4))
+		{
+			if (digits == 2)
+				scoreText[--pos] = '.';
+			else
+			{
+				scoreText[--pos] = (byte) ('0' + cents % 10);
+				cents /= 10;
+			}
+			digits++;
+		}
+
+		if (score < 0 && pos > SCORE_LABEL.length())
+			scoreText[--pos] = '-';
+
+		// prepend the label, then center the text in the line
+		pos -= SCORE_LABEL.length();
+		for (int i = 0; i < SCORE_LABEL.length(); i++)
+			scoreText[pos + i] = (byte) SCORE_LABEL.charAt(i);
+
+		int length = scoreText.length - pos;
+		int left = Math.max(0, (scoreWidth - length) / 2);
+		int copy = Math.min(length, scoreWidth - left);
+		Arrays.fill(frame, scoreOffset, scoreOffset + scoreWidth, (byte) ' ');
+		System.arraycopy(scoreText, pos, frame, scoreOffset + left, copy);
+	}
+
+	/**
+	 * get the encoded slot of a block
+	 * @param block the block, packed by getBlock()
+	 * @return the encoded slot, SLOT_BYTES long. Do not modify!
+	 */
+	byte[] getSlot(int block)
+	{
+		int index = blockSlotIndex(block);
+		if (index < 0)
+			return encodeSlot(block);
+
+		if (slotCache[index] == null)
+			slotCache[index] = encodeSlot(block);
+
+		return slotCache[index];
+	}
+
+	/**
+	 * get the index of a block in the slot cache
+	 * @param block the block, packed by getBlock()
+	 * @return the index, or -1 if the block cannot be cached
+	 */
+	int blockSlotIndex(int block)
+	{
+		char meta = blockMeta(block);
+		if (meta >= 128)
+			return -1;
+
+		switch (blockRender(block))
+		{
+		case BLANK:
+			return meta * 4;
+		case BLOCK_STATIC:
+			return meta * 4 + 1;
+		case BLOCK_MOVING:
+			return meta * 4 + 2;
+		case BLOCK_GHOST:
+			return meta * 4 + 3;
+		default:
+			return -1;
+		}
+	}
+
+	/**
+	 * encode the slot of a block: a SGR sequence setting the block's color (or resetting it), followed by the chars of
+	 * the block. the SGR parameter is padded with zeros so the slot is always SLOT_BYTES long
+	 * @param block the block, packed by getBlock()
+	 * @return the encoded slot
+	 */
+	byte[] encodeSlot(int block)
+	{
+		// get the color code to use. 0 is reset
+		Attribute color = getColorForMeta(blockMeta(block));
+		String code = "0";
+		if (enableColorRendering && color != null)
+		{
+			// strip ESC [ and m from the sequence
+			String sequence = StringCanvas.getEscapeSequence(color);
+			code = sequence.substring(2, sequence.length() - 1);
+		}
+
+		// encode the chars of the block
+		StringBuilder chars = new StringBuilder();
+		for (int w = 0; w < BLOCK_WIDTH; w++)
+			chars.append(blockRender(block));
+		byte[] charBytes = chars.toString().getBytes(frameCharset);
+
+		// pad the color code so the slot has the right size
+		int digits = SLOT_BYTES - 3 - charBytes.length;
+		StringBuilder slot = new StringBuilder("\033[");
+		for (int i = code.length(); i < digits; i++)
+			slot.append('0');
+		slot.append(code).append('m');
+
+		byte[] sgr = slot.toString().getBytes(StandardCharsets.US_ASCII);
+		if (sgr.length + charBytes.length != SLOT_BYTES)
+			throw new IllegalStateException("cannot encode block '" + blockRender(block) + "' with color " + code);
+
+		byte[] encoded = new byte[SLOT_BYTES];
+		System.arraycopy(sgr, 0, encoded, 0, sgr.length);
+		System.arraycopy(charBytes, 0, encoded, sgr.length, charBytes.length);
+		return encoded;
+	}
+
+	/**
+	 *
+	 * @return a blank block, packed like getBlock() does
+	 */
+	static int getBlank()
+	{
+		return (PlayField.BLANK << 16) | BLANK;
+	}
+
+	/**
+	 * write a string to a output stream, encoded in the charset of the frame
+	 * @param out the stream to write to
+	 * @param str the string to write
+	 */
+	void write(ByteArrayOutputStream out, String str)
+	{
+		byte[] bytes = str.getBytes(frameCharset);
+		out.write(bytes, 0, bytes.length);
+	}
+}
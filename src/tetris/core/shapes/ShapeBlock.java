@@ -1,7 +1,9 @@
 package tetris.core.shapes;
 
+import tetris.core.ShapeRegistry;
 import tetris.core.model.PlayField;
 import tetris.core.model.Shape;
+import tetris.core.model.ShapeDefinition;
 
 /**
  * the "O" or "Block" tetris shape
@@ -11,24 +13,23 @@ public class ShapeBlock extends Shape
 	/**
 	 * the meta char to use for this shape
 	 */
-	final char META = 'y';
+	static final char META = 'y';
 	
 	/**
 	 * blocks for 0 deg rotation
 	 * the "block" shape does not change between rotations, so this is all we need
 	 */
-	final char[][] ROT_0 = blocksHelper(META,
+	static final char[][] ROT_0 = blocksHelper(META,
 			"##",
 			"##");
 
-	public ShapeBlock(PlayField playField, int sx, int sy)
-	{
-		super(playField, sx, sy);
-	}
+	/**
+	 * the shared definition of this shape, built once
+	 */
+	public static final ShapeDefinition DEFINITION = new ShapeDefinition(ShapeRegistry.BLOCK, META, ROT_0);
 
-	@Override
-	protected char[][] getBlocksForRotation(int rotation)
+	public ShapeBlock(PlayField playField, int sx, int sy)
 	{
-		return ROT_0;
+		super(playField, DEFINITION, sx, sy);
 	}
 }
@@ -1,7 +1,9 @@
 package tetris.core.shapes;
 
+import tetris.core.ShapeRegistry;
 import tetris.core.model.PlayField;
 import tetris.core.model.Shape;
+import tetris.core.model.ShapeDefinition;
 
 /**
  * the "L" tetris shape
@@ -11,12 +13,12 @@ public class ShapeL extends Shape
 	/**
 	 * the meta char to use for this shape
 	 */
-	final char META = 'w';
+	static final char META = 'w';
 	
 	/**
 	 * blocks for 0 deg rotation
 	 */
-	final char[][] ROT_0 = blocksHelper(META,
+	static final char[][] ROT_0 = blocksHelper(META,
 			" # ",
 			" # ",
 			" ##");
@@ -24,7 +26,7 @@ public class ShapeL extends Shape
 	/**
 	 * blocks for 90 deg rotation
 	 */
-	final char[][] ROT_90 = blocksHelper(META,
+	static final char[][] ROT_90 = blocksHelper(META,
 			"   ",
 			"###",
 			"#  ");
@@ -32,7 +34,7 @@ public class ShapeL extends Shape
 	/**
 	 * blocks for 180 deg rotation
 	 */
-	final char[][] ROT_180 = blocksHelper(META,
+	static final char[][] ROT_180 = blocksHelper(META,
 			"## ",
 			" # ",
 			" # ");
@@ -40,27 +42,19 @@ public class ShapeL extends Shape
 	/**
 	 * blocks for 270 deg rotation
 	 */
-	final char[][] ROT_270 = blocksHelper(META,
+	static final char[][] ROT_270 = blocksHelper(META,
 			"  #",
 			"###",
 			"   ");
 
-	public ShapeL(PlayField playField, int sx, int sy)
-	{
-		super(playField, sx, sy);
-	}
+	/**
+	 * the shared definition of this shape, built once
+	 */
+	public static final ShapeDefinition DEFINITION = new ShapeDefinition(ShapeRegistry.L, META, ROT_0, ROT_90, ROT_180, ROT_270);
 
-	@Override
-	protected char[][] getBlocksForRotation(int rotation)
+	public ShapeL(PlayField playField, int sx, int sy)
 	{
-		if (rotation == 0)
-			return ROT_0;
-		else if (rotation == 90)
-			return ROT_90;
-		else if (rotation == 180)
-			return ROT_180;
-		else
-			return ROT_270;
+		super(playField, DEFINITION, sx, sy);
 	}
 }
 
@@ -1,7 +1,9 @@
 package tetris.core.shapes;
 
+import tetris.core.ShapeRegistry;
 import tetris.core.model.PlayField;
 import tetris.core.model.Shape;
+import tetris.core.model.ShapeDefinition;
 
 /**
  * the "Line" tetris shape
@@ -11,12 +13,12 @@ public class ShapeLine extends Shape
 	/**
 	 * the meta char to use for this shape
 	 */
-	final char META = 'c';
+	static final char META = 'c';
 	
 	/**
 	 * blocks for 0 deg rotation
 	 */
-	final char[][] ROT_0 = blocksHelper(META,
+	static final char[][] ROT_0 = blocksHelper(META,
 			"  # ",
 			"  # ",
 			"  # ",
@@ -25,7 +27,7 @@ public class ShapeLine extends Shape
 	/**
 	 * blocks for 90 deg rotation
 	 */
-	final char[][] ROT_90 = blocksHelper(META,
+	static final char[][] ROT_90 = blocksHelper(META,
 			"    ",
 			"    ",
 			"####",
@@ -34,7 +36,7 @@ public class ShapeLine extends Shape
 	/**
 	 * blocks for 180 deg rotation
 	 */
-	final char[][] ROT_180 = blocksHelper(META,
+	static final char[][] ROT_180 = blocksHelper(META,
 			" #  ",
 			" #  ",
 			" #  ",
@@ -43,27 +45,19 @@ public class ShapeLine extends Shape
 	/**
 	 * blocks for 270 deg rotation
 	 */
-	final char[][] ROT_270 = blocksHelper(META,
+	static final char[][] ROT_270 = blocksHelper(META,
 			"    ",
 			"####",
 			"    ",
 			"    ");
 
-	public ShapeLine(PlayField playField, int sx, int sy)
-	{
-		super(playField, sx, sy);
-	}
+	/**
+	 * the shared definition of this shape, built once
+	 */
+	public static final ShapeDefinition DEFINITION = new ShapeDefinition(ShapeRegistry.LINE, META, ROT_0, ROT_90, ROT_180, ROT_270);
 
-	@Override
-	protected char[][] getBlocksForRotation(int rotation)
+	public ShapeLine(PlayField playField, int sx, int sy)
 	{
-		if (rotation == 0)
-			return ROT_0;
-		else if (rotation == 90)
-			return ROT_90;
-		else if (rotation == 180)
-			return ROT_180;
-		else
-			return ROT_270;
+		super(playField, DEFINITION, sx, sy);
 	}
 }
@@ -0,0 +1,213 @@
+package tetris.core.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import tetris.core.GameEngine;
+import tetris.core.Hashing;
+import tetris.core.InputFrame;
+import tetris.core.InputSource;
+
+/**
+ * runs a batch of complete, seeded games on all cores and aggregates their results.
+ * Game n of a batch is played with seed (seed + n), so a batch with the same settings always plays out the same,
+ * regardless of the number of threads. The input source of a game gets a seed derived from the game's seed, so a random
+ * player does not draw the same numbers as the piece queue.
+ */
+public class BatchSimulator
+{
+	/**
+	 * the default step limit of a game
+	 */
+	public static final long DEFAULT_MAX_STEPS = 10000;
+
+	/**
+	 * the size of the play field
+	 */
+	int width = 10, height = 20;
+
+	/**
+	 * how many games to play
+	 */
+	long games = 1000;
+
+	/**
+	 * how many threads to play on
+	 */
+	int threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * the seed of the first game
+	 */
+	long seed = 0;
+
+	/**
+	 * stop a game after this many steps, even if it is not over yet. 0 for no limit.
+	 * limited by default, since a good bot may never lose and the batch would never finish
+	 */
+	long maxSteps = DEFAULT_MAX_STEPS;
+
+	/**
+	 * the policy playing the games
+	 */
+	InputSourceFactory policy = new RandomInputSource.Factory();
+
+	/**
+	 * set the size of the play field
+	 * @param w the width of the field
+	 * @param h the height of the field
+	 * @return the simulator instance
+	 */
+	public BatchSimulator setFieldSize(int w, int h)
+	{
+		width = w;
+		height = h;
+		return this;
+	}
+
+	/**
+	 * set how many games to play
+	 * @param count the number of games
+	 * @return the simulator instance
+	 */
+	public BatchSimulator setGames(long count)
+	{
+		games = count;
+		return this;
+	}
+
+	/**
+	 * set how many threads to play on
+	 * @param count the number of threads
+	 * @return the simulator instance
+	 */
+	public BatchSimulator setThreads(int count)
+	{
+		threads = Math.max(1, count);
+		return this;
+	}
+
+	/**
+	 * set the seed of the first game
+	 * @param s the seed
+	 * @return the simulator instance
+	 */
+	public BatchSimulator setSeed(long s)
+	{
+		seed = s;
+		return this;
+	}
+
+	/**
+	 * set after how many steps a game is stopped
+	 * @param steps the step limit, 0 for no limit
+	 * @return the simulator instance
+	 */
+	public BatchSimulator setMaxSteps(long steps)
+	{
+		maxSteps = steps;
+		return this;
+	}
+
+	/**
+	 * set the policy (player or bot) playing the games
+	 * @param factory factory building a input source for every game
+	 * @return the simulator instance
+	 */
+	public BatchSimulator setPolicy(InputSourceFactory factory)
+	{
+		policy = factory;
+		return this;
+	}
+
+	/**
+	 * play all games and collect their statistics
+	 * @return the merged statistics of all games
+	 * @throws InterruptedException if interrupted while waiting for the games to finish
+	 */
+	public SimulationStats run() throws InterruptedException
+	{
+		// the index of the next game to play. workers take games from here until all are played
+		AtomicLong nextGame = new AtomicLong();
+
+		// start the workers. every worker accumulates into its own stats
+		long start = System.nanoTime();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<SimulationStats>> workers = new ArrayList<Future<SimulationStats>>();
+		try
+		{
+			for (int t = 0; t < threads; t++)
+				workers.add(pool.submit(() -> runWorker(nextGame)));
+
+			// merge stats of all workers once they are done
+			SimulationStats total = new SimulationStats();
+			for (Future<SimulationStats> worker : workers)
+				total.merge(worker.get());
+
+			total.elapsedNanos = System.nanoTime() - start;
+			return total;
+		} catch (ExecutionException e)
+		{
+			throw new IllegalStateException("simulation failed", e.getCause());
+		} finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * play games until all games of the batch are taken
+	 * @param nextGame the index of the next game to play, shared by all workers
+	 * @return the stats of all games played by this worker
+	 */
+	SimulationStats runWorker(AtomicLong nextGame)
+	{
+		SimulationStats stats = new SimulationStats();
+		InputFrame frame = new InputFrame();
+		long game;
+		while ((game = nextGame.getAndIncrement()) < games && !Thread.currentThread().isInterrupted())
+			stats.add(playGame(seed + game, frame));
+
+		return stats;
+	}
+
+	/**
+	 * play a single game until it is over (or hits the step limit)
+	 * @param gameSeed the seed of the game
+	 * @param frame the input frame to reuse
+	 * @return the finished game
+	 */
+	GameEngine playGame(long gameSeed, InputFrame frame)
+	{
+		GameEngine engine = new GameEngine(width, height, gameSeed);
+		InputSource input = policy.build(getInputSeed(gameSeed));
+		if (!input.init())
+			throw new IllegalStateException("could not init input source");
+
+		while (!engine.isGameOver() && (maxSteps <= 0 || engine.getSteps() < maxSteps))
+		{
+			input.poll(engine, frame.clear());
+			engine.step(frame);
+		}
+
+		input.dispose();
+		return engine;
+	}
+
+	/**
+	 * derive the seed of a game's input source from the seed of the game.
+	 * the seed is scrambled (see {@code Hashing.mix64()}), so the input source's random numbers are not
+	 * correlated with the ones of the game
+	 * @param gameSeed the seed of the game
+	 * @return the seed of the input source
+	 */
+	static long getInputSeed(long gameSeed)
+	{
+		return Hashing.mix64(gameSeed + Hashing.GOLDEN_GAMMA);
+	}
+}
@@ -0,0 +1,13 @@
+package tetris.core.simulation;
+
+import tetris.core.InputSource;
+
+public abstract class InputSourceFactory
+{
+	/**
+	 * build a input source (player or bot) for a single game
+	 * @param seed the seed for input sources that need randomness. derived from the seed of the game, but not the same
+	 * @return the input source built
+	 */
+	public abstract InputSource build(long seed);
+}
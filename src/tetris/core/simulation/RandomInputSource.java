@@ -0,0 +1,68 @@
+package tetris.core.simulation;
+
+import java.util.Random;
+
+import tetris.core.GameEngine;
+import tetris.core.InputFrame;
+import tetris.core.InputSource;
+
+/**
+ * a "player" that just mashes random buttons.
+ * Used as the default policy for simulations.
+ */
+public class RandomInputSource extends InputSource
+{
+	/**
+	 * random number generator to decide what to press
+	 */
+	final Random rng;
+
+	/**
+	 * create a random input source
+	 * @param seed the seed for the random number generator
+	 */
+	public RandomInputSource(long seed)
+	{
+		rng = new Random(seed);
+	}
+
+	@Override
+	public void poll(GameEngine game, InputFrame frame)
+	{
+		// press a button about every second step, drop only rarely
+		switch (rng.nextInt(16))
+		{
+		case 0:
+		case 1:
+			frame.add(InputFrame.ROTATE);
+			break;
+		case 2:
+		case 3:
+		case 4:
+			frame.add(InputFrame.LEFT);
+			break;
+		case 5:
+		case 6:
+		case 7:
+			frame.add(InputFrame.RIGHT);
+			break;
+		case 8:
+			frame.add(InputFrame.DROP);
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * factory for random input sources
+	 */
+	public static class Factory extends InputSourceFactory
+	{
+		@Override
+		public InputSource build(long seed)
+		{
+			return new RandomInputSource(seed);
+		}
+	}
+}
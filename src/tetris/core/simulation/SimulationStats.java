@@ -0,0 +1,194 @@
+package tetris.core.simulation;
+
+import java.util.Arrays;
+
+import tetris.core.GameEngine;
+
+/**
+ * statistics accumulated over a batch of simulated games.
+ * Not thread safe, every worker keeps its own instance and they are merged once all games are done.
+ */
+public class SimulationStats
+{
+	/**
+	 * how many games were played
+	 */
+	long games = 0;
+
+	/**
+	 * totals over all games
+	 */
+	long steps = 0, piecesPlaced = 0, linesCleared = 0;
+
+	/**
+	 * how many games were stopped because they hit the step limit (instead of game over)
+	 */
+	long gamesCapped = 0;
+
+	/**
+	 * the final score of every game, only the first {@code games} entries are used
+	 */
+	double[] scores = new double[64];
+
+	/**
+	 * how long the batch took to simulate, in nanoseconds. set by the simulator
+	 */
+	long elapsedNanos = 0;
+
+	/**
+	 * add the result of a finished game
+	 * @param game the game that finished
+	 */
+	public void add(GameEngine game)
+	{
+		if (games == scores.length)
+			scores = Arrays.copyOf(scores, scores.length * 2);
+
+		scores[(int) games++] = game.getScore();
+		steps += game.getSteps();
+		piecesPlaced += game.getPiecesPlaced();
+		linesCleared += game.getLinesCleared();
+		if (!game.isGameOver())
+			gamesCapped++;
+	}
+
+	/**
+	 * add all results of another stats object to this one
+	 * @param other the stats to add
+	 */
+	public void merge(SimulationStats other)
+	{
+		if (games + other.games > scores.length)
+			scores = Arrays.copyOf(scores, (int) Math.max(scores.length * 2, games + other.games));
+
+		System.arraycopy(other.scores, 0, scores, (int) games, (int) other.games);
+		games += other.games;
+		steps += other.steps;
+		piecesPlaced += other.piecesPlaced;
+		linesCleared += other.linesCleared;
+		gamesCapped += other.gamesCapped;
+	}
+
+	/**
+	 *
+	 * @return how many games were played
+	 */
+	public long getGames()
+	{
+		return games;
+	}
+
+	/**
+	 *
+	 * @return how many steps were run in total
+	 */
+	public long getSteps()
+	{
+		return steps;
+	}
+
+	/**
+	 *
+	 * @return how many pieces were placed in total
+	 */
+	public long getPiecesPlaced()
+	{
+		return piecesPlaced;
+	}
+
+	/**
+	 *
+	 * @return how many lines were cleared in total
+	 */
+	public long getLinesCleared()
+	{
+		return linesCleared;
+	}
+
+	/**
+	 *
+	 * @return how many games hit the step limit
+	 */
+	public long getGamesCapped()
+	{
+		return gamesCapped;
+	}
+
+	/**
+	 *
+	 * @return the mean score of all games
+	 */
+	public double getMeanScore()
+	{
+		double sum = 0;
+		for (int i = 0; i < games; i++)
+			sum += scores[i];
+
+		return games == 0 ? 0 : sum / games;
+	}
+
+	/**
+	 *
+	 * @return the standard deviation of the scores of all games
+	 */
+	public double getScoreStdDev()
+	{
+		double mean = getMeanScore();
+		double sum = 0;
+		for (int i = 0; i < games; i++)
+			sum += (scores[i] - mean) * (scores[i] - mean);
+
+		return games == 0 ? 0 : Math.sqrt(sum / games);
+	}
+
+	/**
+	 * get a percentile of the score distribution
+	 * @param p the percentile to get, 0 - 100. 0 is the minimum, 100 the maximum score
+	 * @return the score at that percentile
+	 */
+	public double getScorePercentile(double p)
+	{
+		if (games == 0)
+			return 0;
+
+		double[] sorted = Arrays.copyOf(scores, (int) games);
+		Arrays.sort(sorted);
+		int i = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, i))];
+	}
+
+	/**
+	 *
+	 * @return how long the batch took, in seconds
+	 */
+	public double getElapsedSeconds()
+	{
+		return elapsedNanos / 1e9;
+	}
+
+	/**
+	 *
+	 * @return how many games were simulated per second
+	 */
+	public double getGamesPerSecond()
+	{
+		return elapsedNanos == 0 ? 0 : games / getElapsedSeconds();
+	}
+
+	/**
+	 * format the stats as a human readable summary
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("games:          %d (%d hit the step limit)%n", games, gamesCapped)
+				+ String.format("time:           %.2f s (%.1f games/s, %.0f steps/s)%n", getElapsedSeconds(), getGamesPerSecond(),
+						elapsedNanos == 0 ? 0 : steps / getElapsedSeconds())
+				+ String.format("pieces placed:  %d (%.1f per game)%n", piecesPlaced, games == 0 ? 0 : (double) piecesPlaced / games)
+				+ String.format("lines cleared:  %d (%.2f per game)%n", linesCleared, games == 0 ? 0 : (double) linesCleared / games)
+				+ String.format("score:          mean %.2f, stddev %.2f%n", getMeanScore(), getScoreStdDev())
+				+ String.format("score (pctl):   min %.0f, p50 %.0f, p90 %.0f, p99 %.0f, max %.0f%n",
+						getScorePercentile(0), getScorePercentile(50), getScorePercentile(90), getScorePercentile(99),
+						getScorePercentile(100));
+	}
+}